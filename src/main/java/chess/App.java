@@ -19,6 +19,9 @@ public class App {
         Map<String, String> env = System.getenv();
         String token = null;
         boolean isLichess = false;
+        int threads = 1;
+        boolean ponder = false;
+        TimeManager timeManager = new TimeManager();
         // Parse passed parameters.
         for (String arg : args) {
             if (arg.contains("--lichess")) {
@@ -30,13 +33,30 @@ public class App {
             if (arg.contains("--token=")) {
                 token = arg.substring(8);
             }
+            if (arg.contains("--threads=")) {
+                threads = Integer.parseInt(arg.substring(10));
+            }
+            if (arg.contains("--ponder")) {
+                ponder = true;
+            }
+            if (arg.contains("--move-time=")) {
+                timeManager.setDefaultMoveTime(Long.parseLong(arg.substring(12)));
+            }
+            if (arg.contains("--max-move-time=")) {
+                timeManager.setMaxMoveTime(Long.parseLong(arg.substring(16)));
+            }
+            if (arg.contains("--move-overhead=")) {
+                timeManager.setMoveOverhead(Long.parseLong(arg.substring(16)));
+            }
         }
         
         /*
         You need to place your bot implementation to the variable below.
         Make sure it implements the interface ChessBot, and don't change the variable name!
         */
-        ChessBot bot = new PiketulusBot(); // Your bot here!
+        PiketulusBot piketulus = new PiketulusBot(threads, timeManager);
+        piketulus.setPondering(ponder);
+        ChessBot bot = piketulus; // Your bot here!
 
         if (isLichess) {
             if (token == null) {
@@ -4,4 +4,10 @@ import chess.engine.GameState;
 
 public interface ChessBot {
     String nextMove(GameState gamestate);
+
+    /**
+     * Called when the game ends for any reason, so that the bot can stop any work it does between moves.
+     */
+    default void gameOver() {
+    }
 }
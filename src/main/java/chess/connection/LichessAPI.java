@@ -216,6 +216,7 @@ public class LichessAPI {
             }
         }
 
+        bot.gameOver();
     }
 
     /**
@@ -61,6 +61,7 @@ public class XBoardHandler {
                 logger.logMessage(command);
                 switch (command.split(" ")[0]) {
                     case "new":
+                        bot.gameOver();
                         this.gamestate = new GameState();
                         gamestate.playing = Side.BLACK;
                         break;
@@ -86,6 +87,20 @@ public class XBoardHandler {
                         gamestate.setTimeOpponent(10 * Long.parseLong(command.split(" ")[1]));
                         break;
 
+                    case "level":
+                        // level MPS BASE INC, increment is given in seconds
+                        gamestate.setIncrement((long) (1000 * Double.parseDouble(command.split(" ")[3])));
+                        break;
+
+                    case "result":
+                        bot.gameOver();
+                        break;
+
+                    case "quit":
+                        bot.gameOver();
+                        run = false;
+                        break;
+
                     // This is used for tests
                     case "endloop":
                         run = false;
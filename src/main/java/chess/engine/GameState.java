@@ -50,6 +50,16 @@ public class GameState {
      * Remaining time for the black player
      */
     public long blackTime;
+
+    /**
+     * Increment per move for white player, in milliseconds
+     */
+    public long whiteIncrement;
+
+    /**
+     * Increment per move for black player, in milliseconds
+     */
+    public long blackIncrement;
     
     /**
      * All moves made in this game in, UCI notation
@@ -107,6 +117,28 @@ public class GameState {
             return this.whiteTime;
         }
     }
+
+    /**
+     * The increment per move for the side that the bot, that has this gamestate, plays. In milliseconds
+     * @return increment as long, in ms
+     */
+    public long getIncrement() {
+        if (playing == Side.WHITE) {
+            return this.whiteIncrement;
+        } else {
+            return this.blackIncrement;
+        }
+    }
+
+    /**
+     * Sets increment for both sides, used by XBoardHandler
+     * @param increment increment per move in ms
+     */
+    public void setIncrement(long increment) {
+        this.whiteIncrement = increment;
+        this.blackIncrement = increment;
+    }
+
     public boolean myTurn() {
         return this.turn == this.playing;
     }
@@ -174,6 +206,8 @@ public class GameState {
             
             gameState.whiteTime = jsonGameState.getJSONObject("state").getInt("wtime");
             gameState.blackTime = jsonGameState.getJSONObject("state").getInt("btime");
+            gameState.whiteIncrement = jsonGameState.getJSONObject("state").optInt("winc");
+            gameState.blackIncrement = jsonGameState.getJSONObject("state").optInt("binc");
         }
         
         return gameState;
@@ -206,6 +240,8 @@ public class GameState {
             
             this.whiteTime = jsonGameState.getJSONObject("state").getInt("wtime");
             this.blackTime = jsonGameState.getJSONObject("state").getInt("btime");
+            this.whiteIncrement = jsonGameState.getJSONObject("state").optInt("winc");
+            this.blackIncrement = jsonGameState.getJSONObject("state").optInt("binc");
         } else if (jsonGameState.getString("type").equals("gameState")) {
             String[] moves = jsonGameState.getString("moves").split(" ");
             
@@ -213,6 +249,8 @@ public class GameState {
             
             this.whiteTime = jsonGameState.getInt("wtime");
             this.blackTime = jsonGameState.getInt("btime");
+            this.whiteIncrement = jsonGameState.optInt("winc");
+            this.blackIncrement = jsonGameState.optInt("binc");
         }     
     }
 }
@@ -0,0 +1,111 @@
+package datastructureproject;
+
+/**
+ * Precomputed attack tables for knights, kings and pawns, and the squares between any two aligned squares.
+ * These pieces always attack the same squares from a square no matter what else is on the board,
+ * so the attacks are computed once for every square when the class is loaded and shared by all move generators.
+ * https://www.chessprogramming.org/Knight_Pattern, https://www.chessprogramming.org/King_Pattern
+ */
+public class AttackTables {
+
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+                                                   {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1},
+                                                 {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] WHITE_PAWN_OFFSETS = {{1, 1}, {1, -1}};
+    private static final int[][] BLACK_PAWN_OFFSETS = {{-1, 1}, {-1, -1}};
+
+    private static final long[] knightAttacks = new long[64];
+    private static final long[] kingAttacks = new long[64];
+    private static final long[] whitePawnAttacks = new long[64];
+    private static final long[] blackPawnAttacks = new long[64];
+    private static final long[][] between = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            knightAttacks[square] = attacksFromOffsets(square, KNIGHT_OFFSETS);
+            kingAttacks[square] = attacksFromOffsets(square, KING_OFFSETS);
+            whitePawnAttacks[square] = attacksFromOffsets(square, WHITE_PAWN_OFFSETS);
+            blackPawnAttacks[square] = attacksFromOffsets(square, BLACK_PAWN_OFFSETS);
+            fillBetween(square);
+        }
+    }
+
+
+    /**
+     * Gets the squares attacked by a knight.
+     * @param square index of the knight (row * 8 + col)
+     * @return bitboard of attacked squares
+     */
+    public static long getKnightAttacks(int square) {
+        return knightAttacks[square];
+    }
+
+
+    /**
+     * Gets the squares attacked by a king.
+     * @param square index of the king (row * 8 + col)
+     * @return bitboard of attacked squares
+     */
+    public static long getKingAttacks(int square) {
+        return kingAttacks[square];
+    }
+
+
+    /**
+     * Gets the squares a pawn attacks diagonally forward.
+     * Also gives the squares of the enemy pawns that could attack the square,
+     * when called with the side of the piece on the square.
+     * @param square index of the pawn (row * 8 + col)
+     * @param white true for a white pawn, which moves up the board
+     * @return bitboard of attacked squares
+     */
+    public static long getPawnAttacks(int square, boolean white) {
+        return white ? whitePawnAttacks[square] : blackPawnAttacks[square];
+    }
+
+
+    /**
+     * Gets the squares strictly between two squares on the same row, column or diagonal.
+     * Used for pin rays and for the squares that block a sliding check.
+     * @param from index of the first square
+     * @param to index of the second square
+     * @return bitboard of the squares between, 0 if the squares are not aligned or are adjacent
+     */
+    public static long getBetween(int from, int to) {
+        return between[from][to];
+    }
+
+
+    private static void fillBetween(int square) {
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] direction : KING_OFFSETS) {
+            long squares = 0L;
+            int i = row + direction[0];
+            int j = col + direction[1];
+            while (i >= 0 && i < 8 && j >= 0 && j < 8) {
+                between[square][i * 8 + j] = squares;
+                squares |= 1L << (i * 8 + j);
+                i += direction[0];
+                j += direction[1];
+            }
+        }
+    }
+
+
+    private static long attacksFromOffsets(int square, int[][] offsets) {
+        long attacks = 0L;
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] offset : offsets) {
+            int i = row + offset[0];
+            int j = col + offset[1];
+            if (i >= 0 && i < 8 && j >= 0 && j < 8) {
+                attacks |= 1L << (i * 8 + j);
+            }
+        }
+        return attacks;
+    }
+
+}
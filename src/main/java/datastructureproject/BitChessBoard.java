@@ -1,5 +1,8 @@
 package datastructureproject;
 
+import java.util.Arrays;
+
+import chess.model.Side;
 
 /**
  * A class for representing a chess board using bitboards.
@@ -7,8 +10,14 @@ package datastructureproject;
  */
 public class BitChessBoard {
 
-    public String enpassantable;
-    public String castlingRights;
+    // castling rights as a mask of the rights below
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public int castlingRights;
+    public int enpassantable; // index of the pawn that can be captured en passant, or -1 if there is none
 
     public long whitePawns = 0L;
     public long whiteKnights = 0L;
@@ -24,15 +33,60 @@ public class BitChessBoard {
     public long blackQueens = 0L;
     public long blackKing = 0L;
 
+    // piece type of each promotion in MoveParser format: queen, rook, bishop, knight
+    private static final int[] PROMOTION_PIECES = {0, 4, 3, 2, 1};
+
+    // castling rights kept when a piece moves from or to the square, clears the rights of kings and corner rooks
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASKS[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[63] &= ~BLACK_KINGSIDE;
+    }
+
+    // Undo stack: state that can not be restored from the move itself is saved here by makeMove()
+    // and popped by unmakeMove(). The stack is preallocated and only grows in very long games.
+    // Since the moves of the game are made on the same board as the search, the saved hashes are also
+    // the history of all positions of the game and the search path, used for detecting repetitions.
+    private static final int INITIAL_UNDO_CAPACITY = 512;
+
+    private int[] undoCastlingRights = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoEnpassantable = new int[INITIAL_UNDO_CAPACITY];
+    private long[] undoHash = new long[INITIAL_UNDO_CAPACITY];
+    private int[] undoMiddlegameScore = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoEndgameScore = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoGamePhase = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoHalfmoveClock = new int[INITIAL_UNDO_CAPACITY];
+    private int ply = 0;
+
+    // plies since the last capture or pawn move, for the fifty-move rule and the repetition window
+    private int halfmoveClock = 0;
+
+    // Zobrist hash of the position including the side to move, updated in makeMove()
+    private long hash;
+
+    // material and piece square table scores from white's point of view and the game phase,
+    // updated in makeMove() so that PositionEvaluator does not need to go through the pieces
+    private int middlegameScore;
+    private int endgameScore;
+    private int gamePhase;
+
 
     public BitChessBoard() {
-        this.enpassantable = "-";
-        this.castlingRights = "KQkq";
+        this.enpassantable = -1;
+        this.castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
         this.initializeBoard();
+        this.hash = new Hasher().getHash(this, Side.WHITE);
+        this.computeScores();
     }
 
 
-    // copy constructor
+    // copy constructor, the undo stack is copied too so that the copy knows the earlier positions of the game
     public BitChessBoard(BitChessBoard board) {
         this.enpassantable = board.enpassantable;
         this.castlingRights = board.castlingRights;
@@ -48,6 +102,19 @@ public class BitChessBoard {
         this.blackRooks = board.blackRooks;
         this.blackQueens = board.blackQueens;
         this.blackKing = board.blackKing;
+        this.hash = board.hash;
+        this.middlegameScore = board.middlegameScore;
+        this.endgameScore = board.endgameScore;
+        this.gamePhase = board.gamePhase;
+        this.halfmoveClock = board.halfmoveClock;
+        this.ply = board.ply;
+        this.undoCastlingRights = Arrays.copyOf(board.undoCastlingRights, board.undoCastlingRights.length);
+        this.undoEnpassantable = Arrays.copyOf(board.undoEnpassantable, board.undoEnpassantable.length);
+        this.undoHash = Arrays.copyOf(board.undoHash, board.undoHash.length);
+        this.undoMiddlegameScore = Arrays.copyOf(board.undoMiddlegameScore, board.undoMiddlegameScore.length);
+        this.undoEndgameScore = Arrays.copyOf(board.undoEndgameScore, board.undoEndgameScore.length);
+        this.undoGamePhase = Arrays.copyOf(board.undoGamePhase, board.undoGamePhase.length);
+        this.undoHalfmoveClock = Arrays.copyOf(board.undoHalfmoveClock, board.undoHalfmoveClock.length);
     }
 
 
@@ -60,264 +127,340 @@ public class BitChessBoard {
     }
 
 
+    public int getMiddlegameScore() {
+        return this.middlegameScore;
+    }
+
+
+    public int getEndgameScore() {
+        return this.endgameScore;
+    }
+
+
+    public int getGamePhase() {
+        return this.gamePhase;
+    }
+
+
     /**
-     * Makes a move on the board, assumes that the move is legal.
-     * @param move move to be made
+     * Checks if the castling right is still available.
+     * @param right one of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE or BLACK_QUEENSIDE
+     * @return true if the right is available
      */
-    public void makeMove(String move) {
+    public boolean canCastle(int right) {
+        return (this.castlingRights & right) != 0;
+    }
 
-        int fromRow = MoveParser.getFromRow(move);
-        int fromCol = MoveParser.getFromCol(move);
-        int toRow = MoveParser.getToRow(move);
-        int toCol = MoveParser.getToCol(move);
-
-        //special case for promotion:
-
-        if (MoveParser.isPromotion(move)) { 
-            //if fromrow is less than torow, then it's a white pawn
-            long toPiece = 1L << (8 * toRow + toCol);
-            if (fromRow < toRow) {
-                this.whitePawns &= ~(1L << (8 * fromRow + fromCol));
-                if ((this.blackPawns & toPiece) != 0L) {
-                    this.blackPawns &= ~toPiece;
-                } else if ((this.blackKnights & toPiece) != 0L) {
-                    this.blackKnights &= ~toPiece;
-                } else if ((this.blackBishops & toPiece) != 0L) {
-                    this.blackBishops &= ~toPiece;
-                } else if ((this.blackRooks & toPiece) != 0L) {
-                    this.blackRooks &= ~toPiece;
-                } else if ((this.blackQueens & toPiece) != 0L) {
-                    this.blackQueens &= ~toPiece;
-                }
-                switch (move.charAt(4)) {
-                    case 'q':
-                        this.whiteQueens |= 1L << (8 * toRow + toCol);
-                        break;
-                    case 'r':
-                        this.whiteRooks |= 1L << (8 * toRow + toCol);
-                        break;
-                    case 'b':
-                        this.whiteBishops |= 1L << (8 * toRow + toCol);
-                        break;
-                    case 'n':
-                        this.whiteKnights |= 1L << (8 * toRow + toCol);
-                        break;
-                }
-            } else {
-                this.blackPawns &= ~(1L << (8 * fromRow + fromCol));
-                if ((this.whitePawns & toPiece) != 0L) {
-                    this.whitePawns &= ~toPiece;
-                } else if ((this.whiteKnights & toPiece) != 0L) {
-                    this.whiteKnights &= ~toPiece;
-                } else if ((this.whiteBishops & toPiece) != 0L) {
-                    this.whiteBishops &= ~toPiece;
-                } else if ((this.whiteRooks & toPiece) != 0L) {
-                    this.whiteRooks &= ~toPiece;
-                } else if ((this.whiteQueens & toPiece) != 0L) {
-                    this.whiteQueens &= ~toPiece;
-                }
-                switch (move.charAt(4)) {
-                    case 'q':
-                        this.blackQueens |= 1L << (8 * toRow + toCol);
-                        break;
-                    case 'r':
-                        this.blackRooks |= 1L << (8 * toRow + toCol);
-                        break;
-                    case 'b':
-                        this.blackBishops |= 1L << (8 * toRow + toCol);
-                        break;
-                    case 'n':
-                        this.blackKnights |= 1L << (8 * toRow + toCol);
-                        break;
-                }
-            }
-            this.enpassantable = "-";
-            return;
-        } 
-
-        //special cases for castling moves:
-        //since we need to move both the king and the rook
-
-        if ((((this.whiteKing >> (fromRow * 8 + fromCol)) & 1L) > 0)) {
-            if (move.equals("e1g1")) {
-                this.whiteKing &= ~(1L << (8 * fromRow + fromCol));
-                this.whiteKing |= 1L << (8 * toRow + toCol);
-                this.whiteRooks &= ~(1L << (8 * 0 + 7));
-                this.whiteRooks |= 1L << (8 * 0 + 5);
-                this.castlingRights = this.castlingRights.replace("K", "");
-                this.castlingRights = this.castlingRights.replace("Q", "");
-                this.enpassantable = "-";
-                return;
-            } else if (move.equals("e1c1")) {
-                this.whiteKing &= ~(1L << (8 * fromRow + fromCol));
-                this.whiteKing |= 1L << (8 * toRow + toCol);
-                this.whiteRooks &= ~(1L << (8 * 0 + 0));
-                this.whiteRooks |= 1L << (8 * 0 + 3);
-                this.castlingRights = this.castlingRights.replace("K", "");
-                this.castlingRights = this.castlingRights.replace("Q", "");
-                this.enpassantable = "-";
-                return;
-            }
-        } else if ((((blackKing >> (fromRow * 8 + fromCol)) & 1L) > 0)) {
-            if (move.equals("e8g8")) {
-                this.blackKing &= ~(1L << (8 * fromRow + fromCol));
-                this.blackKing |= 1L << (8 * toRow + toCol);
-                this.blackRooks &= ~(1L << (8 * 7 + 7));
-                this.blackRooks |= 1L << (8 * 7 + 5);
-                this.castlingRights = this.castlingRights.replace("k", "");
-                this.castlingRights = this.castlingRights.replace("q", "");
-                this.enpassantable = "-";
-                return;
-            } else if (move.equals("e8c8")) {
-                this.blackKing &= ~(1L << (8 * fromRow + fromCol));
-                this.blackKing |= 1L << (8 * toRow + toCol);
-                this.blackRooks &= ~(1L << (8 * 7 + 0));
-                this.blackRooks |= 1L << (8 * 7 + 3);
-                this.castlingRights = this.castlingRights.replace("k", "");
-                this.castlingRights = this.castlingRights.replace("q", "");
-                this.enpassantable = "-";
-                return;
+
+    /**
+     * Castling rights in FEN format.
+     * @return for example "KQkq", or "-" if there are no rights
+     */
+    public String getCastlingString() {
+        StringBuilder rights = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            if ((this.castlingRights & (1 << i)) != 0) {
+                rights.append("KQkq".charAt(i));
             }
         }
-        
-        //special case for en passant:
-
-        if (!this.enpassantable.equals("-")) {
-            if (move.charAt(0) != move.charAt(2) 
-                    && move.charAt(1) == this.enpassantable.charAt(1) 
-                    && move.charAt(2) == this.enpassantable.charAt(0) 
-                    && ((((this.whitePawns >> (fromRow * 8 + fromCol)) & 1L) > 0) 
-                        || (((this.blackPawns >> (fromRow * 8 + fromCol)) & 1L) > 0))) {
-                if (fromRow < toRow) {
-                    this.whitePawns &= ~(1L << (8 * fromRow + fromCol));
-                    this.whitePawns |= 1L << (8 * toRow + toCol);
-                    this.blackPawns &= ~(1L << (8 * fromRow + toCol));
-                } else {
-                    this.blackPawns &= ~(1L << (8 * fromRow + fromCol));
-                    this.blackPawns |= 1L << (8 * toRow + toCol);
-                    this.whitePawns &= ~(1L << (8 * fromRow + toCol));
-                }
-                this.enpassantable = "-";
-                return;
+        return rights.length() == 0 ? "-" : rights.toString();
+    }
+
+
+    /**
+     * Square of the pawn that can be captured en passant.
+     * @return square in algebraic notation, for example "d5", or "-" if there is none
+     */
+    public String getEnpassantString() {
+        if (this.enpassantable == -1) {
+            return "-";
+        }
+        return MoveParser.numberToLetter(this.enpassantable % 8) + (this.enpassantable / 8 + 1);
+    }
+
+
+    /**
+     * Zobrist hash of the position, kept up to date by makeMove() and unmakeMove().
+     * The side to move is the one given in the FEN, or white for a new board, switched on every move.
+     * @return hash of the position
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+
+    /**
+     * Number of plies since the last capture or pawn move.
+     * @return halfmove clock, 100 or more means the game can be claimed drawn by the fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+
+    /**
+     * Checks if the current position has occurred before in the game or the search path.
+     * Positions before the last capture or pawn move can not repeat, so only the hashes within the
+     * halfmove clock are compared, every other one since the same side has to be to move.
+     * @return true if the position is a repetition
+     */
+    public boolean isRepetition() {
+        int oldest = Math.max(0, this.ply - this.halfmoveClock);
+        for (int i = this.ply - 4; i >= oldest; i -= 2) {
+            if (this.undoHash[i] == this.hash) {
+                return true;
             }
         }
+        return false;
+    }
+
+
+    /**
+     * Checks if the position is a draw by the fifty-move rule or by repetition.
+     * A single repetition is enough, since if repeating the position was the best choice once,
+     * it will be again, and the game ends in a threefold repetition anyway.
+     * @return true if the position is drawn
+     */
+    public boolean isDraw() {
+        return this.halfmoveClock >= 100 || this.isRepetition();
+    }
+
+
+    /**
+     * Makes a move given in UCI format on the board, assumes that the move is legal.
+     * @param move move to be made
+     */
+    public void makeMove(String move) {
+        this.makeMove(MoveParser.uciToMove(move, this));
+    }
+
+
+    /**
+     * Makes an encoded move on the board, assumes that the move is legal.
+     * The state needed to take the move back is pushed on the undo stack, see unmakeMove().
+     * @param move move to be made, see MoveParser.encodeMove()
+     */
+    public void makeMove(int move) {
+
+        this.pushUndoState();
+
+        int oldCastlingRights = this.castlingRights;
+        int oldEnpassantable = this.enpassantable;
+        long newHash = this.hash ^ Hasher.getSideHash();
+
+        int from = MoveParser.getFrom(move);
+        int to = MoveParser.getTo(move);
+        int piece = MoveParser.getPiece(move);
+        int captured = MoveParser.getCaptured(move);
+        int flags = MoveParser.getFlags(move);
+
+        this.halfmoveClock = captured != MoveParser.NO_PIECE || piece % 6 == 0 ? 0 : this.halfmoveClock + 1;
+
+        if (captured != MoveParser.NO_PIECE) {
+            int capturedSquare = flags == MoveParser.EN_PASSANT ? (piece == 0 ? to - 8 : to + 8) : to;
+            this.togglePiece(captured, 1L << capturedSquare);
+            newHash ^= Hasher.getPieceHash(captured, capturedSquare);
+            this.updateScores(captured, capturedSquare, -1);
+        }
 
-        //set enpassantable piece:
+        this.togglePiece(piece, 1L << from);
+        newHash ^= Hasher.getPieceHash(piece, from);
+        this.updateScores(piece, from, -1);
+
+        int promotion = MoveParser.getPromotion(move);
+        int placedPiece = promotion != 0 ? PROMOTION_PIECES[promotion] + (piece < 6 ? 0 : 6) : piece;
+        this.togglePiece(placedPiece, 1L << to);
+        newHash ^= Hasher.getPieceHash(placedPiece, to);
+        this.updateScores(placedPiece, to, 1);
+
+        //castling moves the rook as well
+        if (flags == MoveParser.CASTLING) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            this.togglePiece(piece - 2, (1L << rookFrom) | (1L << rookTo));
+            newHash ^= Hasher.getPieceHash(piece - 2, rookFrom) ^ Hasher.getPieceHash(piece - 2, rookTo);
+            this.updateScores(piece - 2, rookFrom, -1);
+            this.updateScores(piece - 2, rookTo, 1);
+        }
+
+        //update castling rights in case of king or rook moving, or a rook being captured
+        this.castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
 
-        if (Math.abs(fromRow - toRow) == 2 
-                && ((((this.whitePawns >> (fromRow * 8 + fromCol)) & 1L) > 0) 
-                    || (((this.blackPawns >> (fromRow * 8 + fromCol)) & 1L) > 0))) {
+        //set enpassantable piece, reset after any move that is not a double pawn move
+        this.enpassantable = flags == MoveParser.DOUBLE_PAWN_PUSH ? to : -1;
 
-            this.enpassantable = move.substring(2);
+        newHash ^= Hasher.getCastlingHash(oldCastlingRights) ^ Hasher.getCastlingHash(this.castlingRights);
+        newHash ^= Hasher.getEnPassantHash(oldEnpassantable) ^ Hasher.getEnPassantHash(this.enpassantable);
+        this.hash = newHash;
+
+    }
 
+
+    /**
+     * Takes back a move made with makeMove(), restoring the board to the state before it.
+     * Moves must be taken back in the reverse order they were made.
+     * @param move the move that was last made on the board
+     */
+    public void unmakeMove(int move) {
+
+        this.ply--;
+        this.castlingRights = this.undoCastlingRights[this.ply];
+        this.enpassantable = this.undoEnpassantable[this.ply];
+        this.hash = this.undoHash[this.ply];
+        this.middlegameScore = this.undoMiddlegameScore[this.ply];
+        this.endgameScore = this.undoEndgameScore[this.ply];
+        this.gamePhase = this.undoGamePhase[this.ply];
+        this.halfmoveClock = this.undoHalfmoveClock[this.ply];
+
+        int from = MoveParser.getFrom(move);
+        int to = MoveParser.getTo(move);
+        int piece = MoveParser.getPiece(move);
+        int captured = MoveParser.getCaptured(move);
+        int flags = MoveParser.getFlags(move);
+
+        if (flags == MoveParser.CASTLING) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            this.togglePiece(piece - 2, (1L << rookFrom) | (1L << rookTo));
+        }
+
+        int promotion = MoveParser.getPromotion(move);
+        if (promotion != 0) {
+            this.togglePiece(PROMOTION_PIECES[promotion] + (piece < 6 ? 0 : 6), 1L << to);
         } else {
-            //reset after any move that is not a double pawn move
-            this.enpassantable = "-";
+            this.togglePiece(piece, 1L << to);
         }
 
-        //update castling rights in case of king or rook move:
+        this.togglePiece(piece, 1L << from);
 
-        if ((((this.whiteRooks >> (fromRow * 8 + fromCol)) & 1L) > 0)) {
-            if (fromRow == 0 && fromCol == 0 && this.castlingRights.contains("Q")) {
-                this.castlingRights = this.castlingRights.replace("Q", "");
-            } else if (fromRow == 0 && fromCol == 7 && castlingRights.contains("K")) {
-                this.castlingRights = this.castlingRights.replace("K", "");
-            }
-        } else if ((((this.blackRooks >> (fromRow * 8 + fromCol)) & 1L) > 0)) {
-            if (fromRow == 7 && fromCol == 0 && this.castlingRights.contains("q")) {
-                this.castlingRights = this.castlingRights.replace("q", "");
-            } else if (fromRow == 7 && fromCol == 7 && castlingRights.contains("k")) {
-                this.castlingRights = this.castlingRights.replace("k", "");
-            }
-        } else if ((((this.whiteKing >> (fromRow * 8 + fromCol)) & 1L) > 0)) {
-            if (fromRow == 0 && fromCol == 4) {
-                if (this.castlingRights.contains("K")) {
-                    this.castlingRights = this.castlingRights.replace("K", "");
-                }
-                if (this.castlingRights.contains("Q")) {
-                    this.castlingRights = this.castlingRights.replace("Q", "");
-                }
-            }
-        } else if ((((this.blackKing >> (fromRow * 8 + fromCol)) & 1L) > 0)) {
-            if (fromRow == 7 && fromCol == 4) {
-                if (this.castlingRights.contains("k")) {
-                    this.castlingRights = this.castlingRights.replace("k", "");
-                }
-                if (this.castlingRights.contains("q")) {
-                    this.castlingRights = this.castlingRights.replace("q", "");
-                }
+        if (captured != MoveParser.NO_PIECE) {
+            if (flags == MoveParser.EN_PASSANT) {
+                this.togglePiece(captured, 1L << (piece == 0 ? to - 8 : to + 8));
+            } else {
+                this.togglePiece(captured, 1L << to);
             }
         }
+    }
+
+
+    /**
+     * Passes the turn to the other side without moving anything, used by null move pruning in the search.
+     * Only the side to move in the hash and the en passant square change.
+     * The halfmove clock is reset, so that positions from before the pass are not counted as repetitions.
+     */
+    public void makeNullMove() {
+        this.pushUndoState();
+        this.hash ^= Hasher.getSideHash() ^ Hasher.getEnPassantHash(this.enpassantable);
+        this.enpassantable = -1;
+        this.halfmoveClock = 0;
+    }
+
+
+    /**
+     * Takes back a move made with makeNullMove().
+     */
+    public void unmakeNullMove() {
+        this.ply--;
+        this.enpassantable = this.undoEnpassantable[this.ply];
+        this.hash = this.undoHash[this.ply];
+        this.halfmoveClock = this.undoHalfmoveClock[this.ply];
+    }
 
-        //For non special cases, just move the piece:
-
-        long fromPiece = 1L << (8 * fromRow + fromCol);
-        long toPiece = 1L << (8 * toRow + toCol);
-
-        // remove piece at toPiece if there is already one
-
-        if ((this.whitePawns & toPiece) != 0L) {
-            this.whitePawns &= ~toPiece;
-        } else if ((this.whiteKnights & toPiece) != 0L) {
-            this.whiteKnights &= ~toPiece;
-        } else if ((this.whiteBishops & toPiece) != 0L) {
-            this.whiteBishops &= ~toPiece;
-        } else if ((this.whiteRooks & toPiece) != 0L) {
-            this.whiteRooks &= ~toPiece;
-        } else if ((this.whiteQueens & toPiece) != 0L) {
-            this.whiteQueens &= ~toPiece;
-        } else if ((this.blackPawns & toPiece) != 0L) {
-            this.blackPawns &= ~toPiece;
-        } else if ((this.blackKnights & toPiece) != 0L) {
-            this.blackKnights &= ~toPiece;
-        } else if ((this.blackBishops & toPiece) != 0L) {
-            this.blackBishops &= ~toPiece;
-        } else if ((this.blackRooks & toPiece) != 0L) {
-            this.blackRooks &= ~toPiece;
-        } else if ((this.blackQueens & toPiece) != 0L) {
-            this.blackQueens &= ~toPiece;
-        }
 
-        // move the moving piece
-
-        if ((this.whitePawns & fromPiece) != 0L) {
-            this.whitePawns &= ~fromPiece;
-            this.whitePawns |= toPiece;
-        } else if ((this.whiteKnights & fromPiece) != 0L) {
-            this.whiteKnights &= ~fromPiece;
-            this.whiteKnights |= toPiece;
-        } else if ((this.whiteBishops & fromPiece) != 0L) {
-            this.whiteBishops &= ~fromPiece;
-            this.whiteBishops |= toPiece;
-        } else if ((this.whiteRooks & fromPiece) != 0L) {
-            this.whiteRooks &= ~fromPiece;
-            this.whiteRooks |= toPiece;
-        } else if ((this.whiteQueens & fromPiece) != 0L) {
-            this.whiteQueens &= ~fromPiece;
-            this.whiteQueens |= toPiece;
-        } else if ((this.whiteKing & fromPiece) != 0L) {
-            this.whiteKing &= ~fromPiece;
-            this.whiteKing |= toPiece;
-        } else if ((this.blackPawns & fromPiece) != 0L) {
-            this.blackPawns &= ~fromPiece;
-            this.blackPawns |= toPiece;
-        } else if ((this.blackKnights & fromPiece) != 0L) {
-            this.blackKnights &= ~fromPiece;
-            this.blackKnights |= toPiece;
-        } else if ((this.blackBishops & fromPiece) != 0L) {
-            this.blackBishops &= ~fromPiece;
-            this.blackBishops |= toPiece;
-        } else if ((this.blackRooks & fromPiece) != 0L) {
-            this.blackRooks &= ~fromPiece;
-            this.blackRooks |= toPiece;
-        } else if ((this.blackQueens & fromPiece) != 0L) {
-            this.blackQueens &= ~fromPiece;
-            this.blackQueens |= toPiece;
-        } else if ((this.blackKing & fromPiece) != 0L) {
-            this.blackKing &= ~fromPiece;
-            this.blackKing |= toPiece;
+    /**
+     * Helper function for makeMove() and makeNullMove()
+     * Saves the state that the move can not restore to the undo stack, growing the stack if it is full.
+     */
+    private void pushUndoState() {
+        if (this.ply == this.undoCastlingRights.length) {
+            this.undoCastlingRights = Arrays.copyOf(this.undoCastlingRights, this.ply * 2);
+            this.undoEnpassantable = Arrays.copyOf(this.undoEnpassantable, this.ply * 2);
+            this.undoHash = Arrays.copyOf(this.undoHash, this.ply * 2);
+            this.undoMiddlegameScore = Arrays.copyOf(this.undoMiddlegameScore, this.ply * 2);
+            this.undoEndgameScore = Arrays.copyOf(this.undoEndgameScore, this.ply * 2);
+            this.undoGamePhase = Arrays.copyOf(this.undoGamePhase, this.ply * 2);
+            this.undoHalfmoveClock = Arrays.copyOf(this.undoHalfmoveClock, this.ply * 2);
         }
+        this.undoCastlingRights[this.ply] = this.castlingRights;
+        this.undoEnpassantable[this.ply] = this.enpassantable;
+        this.undoHash[this.ply] = this.hash;
+        this.undoMiddlegameScore[this.ply] = this.middlegameScore;
+        this.undoEndgameScore[this.ply] = this.endgameScore;
+        this.undoGamePhase[this.ply] = this.gamePhase;
+        this.undoHalfmoveClock[this.ply] = this.halfmoveClock;
+        this.ply++;
+    }
+
 
+    /**
+     * Helper function for makeMove()
+     * Adds or removes the scores of a piece on a square.
+     * @param pieceType piece type in the order of getBoard()
+     * @param square index of the square
+     * @param sign 1 when the piece is placed on the square, -1 when it is removed
+     */
+    private void updateScores(int pieceType, int square, int sign) {
+        this.middlegameScore += sign * PositionEvaluator.getMiddlegameScore(pieceType, square);
+        this.endgameScore += sign * PositionEvaluator.getEndgameScore(pieceType, square);
+        this.gamePhase += sign * PositionEvaluator.getGamePhaseValue(pieceType);
+    }
+
+
+    /**
+     * Computes the scores of the position from scratch.
+     */
+    private void computeScores() {
+        this.middlegameScore = PositionEvaluator.sumScores(PositionEvaluator.mgScores, this);
+        this.endgameScore = PositionEvaluator.sumScores(PositionEvaluator.egScores, this);
+        this.gamePhase = PositionEvaluator.sumGamePhase(this);
+    }
+
+
+    /**
+     * Helper function for makeMove() and unmakeMove()
+     * Flips the given bits on the bitboard of the piece type.
+     * @param pieceType piece type in the order of getBoard()
+     * @param bits bits to flip
+     */
+    private void togglePiece(int pieceType, long bits) {
+        switch (pieceType) {
+            case 0:
+                this.whitePawns ^= bits;
+                break;
+            case 1:
+                this.whiteKnights ^= bits;
+                break;
+            case 2:
+                this.whiteBishops ^= bits;
+                break;
+            case 3:
+                this.whiteRooks ^= bits;
+                break;
+            case 4:
+                this.whiteQueens ^= bits;
+                break;
+            case 5:
+                this.whiteKing ^= bits;
+                break;
+            case 6:
+                this.blackPawns ^= bits;
+                break;
+            case 7:
+                this.blackKnights ^= bits;
+                break;
+            case 8:
+                this.blackBishops ^= bits;
+                break;
+            case 9:
+                this.blackRooks ^= bits;
+                break;
+            case 10:
+                this.blackQueens ^= bits;
+                break;
+            default:
+                this.blackKing ^= bits;
+                break;
+        }
     }
 
 
@@ -362,7 +505,6 @@ public class BitChessBoard {
     }
 
 
-    // Helper method for Hasher class
     public int getPieceTypeAtIndex (int index) {
         if ((((this.whitePawns >> index) & 1L) > 0)) {
             return 0;
@@ -402,6 +544,7 @@ public class BitChessBoard {
     public void fenToBoard(String fen) {
 
         this.resetBoard();
+        this.ply = 0;
 
         String[] fenParts = fen.split(" ");
         String[] rows = fenParts[0].split("/");
@@ -457,24 +600,30 @@ public class BitChessBoard {
             }
         }
 
-        this.castlingRights = fenParts[2];
-        
-        //set enpassantable
+        this.castlingRights = 0;
+        for (char c : fenParts[2].toCharArray()) {
+            int right = "KQkq".indexOf(c);
+            if (right != -1) {
+                this.castlingRights |= 1 << right;
+            }
+        }
+
+        //set enpassantable, FEN gives the square behind the pawn
         String toMove = fenParts[1];
-        String enpassantable = fenParts[3];
+        String enpassantSquare = fenParts[3];
 
-        if (!enpassantable.equals("-")) {
-            if (toMove.equals("w")) {
-                this.enpassantable = enpassantable.charAt(0) 
-                    + Integer.toString((Character.getNumericValue(enpassantable.charAt(1)) - 1));
-            } else {
-                this.enpassantable = enpassantable.charAt(0) 
-                    + Integer.toString((Character.getNumericValue(enpassantable.charAt(1)) + 1));
-            }
+        if (!enpassantSquare.equals("-")) {
+            int index = MoveParser.getFromRow(enpassantSquare) * 8 + MoveParser.getFromCol(enpassantSquare);
+            this.enpassantable = toMove.equals("w") ? index - 8 : index + 8;
         } else {
-            this.enpassantable = "-";
+            this.enpassantable = -1;
         }
 
+        this.halfmoveClock = fenParts.length > 4 ? Integer.parseInt(fenParts[4]) : 0;
+
+        this.hash = new Hasher().getHash(this, toMove.equals("w") ? Side.WHITE : Side.BLACK);
+        this.computeScores();
+
     }
 
     
@@ -1,6 +1,5 @@
 package datastructureproject;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 import chess.model.Side;
@@ -9,139 +8,107 @@ public class Hasher {
 
     // https://www.chessprogramming.org/Zobrist_Hashing
 
-    private long[][] pieceSquareHashes = new long[12][64];
-    private long sideHash = 0;
-    private long[] castlingHashes = new long[4];
-    private long[] enPassantHash = new long[8];
+    // The random numbers are generated once with a fixed seed and shared by all instances,
+    // so every search thread gets the same hash for a position and the hasher is safe to use concurrently.
 
-    public Hasher() {
-        initPieceSquareHashes();
-        initSideHash();
-        initCastlingHashes();
-        initEnPassantHash();
-    }
+    private static final long SEED = 0x5EED5EEDL;
 
+    private static final long[][] pieceSquareHashes = new long[12][64];
+    private static final long sideHash;
+    private static final long[] castlingHashes = new long[16]; // hash of every castling rights mask
+    private static final long[] enPassantHash = new long[8];
 
-    public long getHash(BitChessBoard board, Side turn) {
-        long hash = 0;
-        int piecetype = 0;
-        for (long pieces : board.getBoard()) {
-            ArrayList<int[]> coordinates = MoveGenerator.getCoordinatesFromBitboard(pieces);
-            for (int[] coordinate : coordinates) {
-                int index = coordinate[0] * 8 + coordinate[1];
-                hash ^= pieceSquareHashes[piecetype][index];
+    static {
+        Random random = new Random(SEED);
+        for (int i = 0; i < 12; i++) {
+            for (int j = 0; j < 64; j++) {
+                pieceSquareHashes[i][j] = random.nextLong();
             }
-            piecetype++;
-        }
-
-        if (turn == Side.BLACK) {
-            hash ^= sideHash;
-        }
-
-        if (board.castlingRights.contains("K")) {
-            hash ^= castlingHashes[0];
-        }
-        if (board.castlingRights.contains("Q")) {
-            hash ^= castlingHashes[1];
         }
-        if (board.castlingRights.contains("k")) {
-            hash ^= castlingHashes[2];
-        }
-        if (board.castlingRights.contains("q")) {
-            hash ^= castlingHashes[3];
+        sideHash = random.nextLong();
+        for (int i = 0; i < 4; i++) {
+            long rightHash = random.nextLong();
+            for (int mask = 0; mask < 16; mask++) {
+                if ((mask & (1 << i)) != 0) {
+                    castlingHashes[mask] ^= rightHash;
+                }
+            }
         }
-
-        if (!board.enpassantable.equals("-")) {
-            int index = MoveParser.letterToNumber(board.enpassantable.charAt(0));
-            hash ^= enPassantHash[index];
+        for (int i = 0; i < 8; i++) {
+            enPassantHash[i] = random.nextLong();
         }
-
-        return hash;
     }
 
 
-    public long updateHash(long oldHash, BitChessBoard oldBoard, 
-                           String newCastling, String newEnpassant, String move) {
-        long hash = oldHash;
-
-        if (oldBoard.castlingRights.contains("K") && !newCastling.contains("K")) {
-            hash ^= castlingHashes[0];
-        }
-        if (oldBoard.castlingRights.contains("Q") && !newCastling.contains("Q")) {
-            hash ^= castlingHashes[1];
-        }
-        if (oldBoard.castlingRights.contains("k") && !newCastling.contains("k")) {
-            hash ^= castlingHashes[2];
-        }
-        if (oldBoard.castlingRights.contains("q") && !newCastling.contains("q")) {
-            hash ^= castlingHashes[3];
-        }
+    /**
+     * Computes the hash of the position from scratch. The board keeps its hash up to date incrementally
+     * in makeMove(), so this is only needed for setting up a board and for verifying the incremental hash.
+     * @param board board to hash
+     * @param turn side to move
+     * @return Zobrist hash of the position
+     */
+    public long getHash(BitChessBoard board, Side turn) {
+        long hash = hashPieces(0, board.whitePawns) ^ hashPieces(1, board.whiteKnights)
+                  ^ hashPieces(2, board.whiteBishops) ^ hashPieces(3, board.whiteRooks)
+                  ^ hashPieces(4, board.whiteQueens) ^ hashPieces(5, board.whiteKing)
+                  ^ hashPieces(6, board.blackPawns) ^ hashPieces(7, board.blackKnights)
+                  ^ hashPieces(8, board.blackBishops) ^ hashPieces(9, board.blackRooks)
+                  ^ hashPieces(10, board.blackQueens) ^ hashPieces(11, board.blackKing);
 
-        if (oldBoard.enpassantable.equals("-") && !newEnpassant.equals("-")) {
-            int index = MoveParser.letterToNumber(newEnpassant.charAt(0));
-            hash ^= enPassantHash[index];
-        } else if (!oldBoard.enpassantable.equals("-") && newEnpassant.equals("-")) {
-            int index = MoveParser.letterToNumber(oldBoard.enpassantable.charAt(0));
-            hash ^= enPassantHash[index];
-        } else if (!oldBoard.enpassantable.equals("-") && !newEnpassant.equals("-")) {
-            int oldIndex = MoveParser.letterToNumber(oldBoard.enpassantable.charAt(0));
-            int newIndex = MoveParser.letterToNumber(newEnpassant.charAt(0));
-            hash ^= enPassantHash[oldIndex];
-            hash ^= enPassantHash[newIndex];
+        if (turn == Side.BLACK) {
+            hash ^= sideHash;
         }
 
-        hash ^= sideHash;
-
-        int fromIndex = MoveParser.getFromRow(move) * 8 + MoveParser.getFromCol(move);
-        int toIndex = MoveParser.getToRow(move) * 8 + MoveParser.getToCol(move);
+        hash ^= getCastlingHash(board.castlingRights);
+        hash ^= getEnPassantHash(board.enpassantable);
 
-        int fromPieceType = oldBoard.getPieceTypeAtIndex(fromIndex);
-        int toPieceType = oldBoard.getPieceTypeAtIndex(toIndex);
+        return hash;
+    }
 
-        hash ^= pieceSquareHashes[fromPieceType][fromIndex];
-        hash ^= pieceSquareHashes[fromPieceType][toIndex];
 
-        if (toPieceType != -1) {
-            hash ^= pieceSquareHashes[toPieceType][toIndex];
+    /**
+     * Xors together the hashes of the pieces of one type on the bitboard.
+     */
+    private static long hashPieces(int pieceType, long bitboard) {
+        long hash = 0;
+        while (bitboard != 0L) {
+            hash ^= pieceSquareHashes[pieceType][Long.numberOfTrailingZeros(bitboard)];
+            bitboard &= bitboard - 1;
         }
-
         return hash;
-
     }
 
 
-    private void initPieceSquareHashes() {
-        for (int i = 0; i < 12; i++) {
-            for (int j = 0; j < 64; j++) {
-                pieceSquareHashes[i][j] = randomLong();
-            }
-        }
+    public static long getPieceHash(int pieceType, int square) {
+        return pieceSquareHashes[pieceType][square];
     }
 
 
-    private void initSideHash() {
-        sideHash = randomLong();
+    public static long getSideHash() {
+        return sideHash;
     }
 
-    
-    private void initCastlingHashes() {
-        for (int i = 0; i < 4; i++) {
-            castlingHashes[i] = randomLong();
-        }
+
+    /**
+     * Hash of the castling rights, the xor of the hashes of each right.
+     * @param castlingRights castling rights mask, see BitChessBoard
+     * @return hash of the rights
+     */
+    public static long getCastlingHash(int castlingRights) {
+        return castlingHashes[castlingRights];
     }
 
 
-    private void initEnPassantHash() {
-        for (int i = 0; i < 8; i++) {
-            enPassantHash[i] = randomLong();
+    /**
+     * Hash of the file of the pawn that can be captured en passant.
+     * @param enpassantable index of the pawn, or -1 if there is none
+     * @return hash of the file, or 0 if there is no such pawn
+     */
+    public static long getEnPassantHash(int enpassantable) {
+        if (enpassantable == -1) {
+            return 0L;
         }
+        return enPassantHash[enpassantable & 7];
     }
-
-    
-    private long randomLong() {
-        Random random = new Random();
-        return random.nextLong();
-    }
-    
     
 }
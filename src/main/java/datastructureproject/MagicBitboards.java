@@ -0,0 +1,170 @@
+package datastructureproject;
+
+/**
+ * Precomputed attack tables for sliding pieces using magic bitboards.
+ * For every square, the occupancy of the squares a rook or bishop could be blocked on is multiplied
+ * by a magic number and shifted, giving a perfect hash into a table of attack bitboards.
+ * The tables are built once when the class is loaded and shared by all move generators.
+ * The magic numbers were found beforehand by trying random sparse numbers until one
+ * mapped every occupancy of the square without destructive collisions.
+ * https://www.chessprogramming.org/Magic_Bitboards
+ */
+public class MagicBitboards {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] rookMasks = new long[64];
+    private static final long[] rookMagics = {
+        0x0080008A22504000L, 0x4040004010002003L, 0x4680088010002002L, 0x9080080004801000L,
+        0x8200108200088420L, 0x0580040042008001L, 0x82002E8200080104L, 0x8600004091002402L,
+        0x4100802080004008L, 0x0000400020100040L, 0x0208801004200080L, 0x400A002012000940L,
+        0xEBB1000801000410L, 0x0022001008040200L, 0x2403000A00090004L, 0x2020800100104880L,
+        0x00C0008000204080L, 0x00A0210040008100L, 0x140C410020001104L, 0x0201050020900008L,
+        0x0040808008000400L, 0x0809010008020400L, 0x1240808002000100L, 0x00080A0028804904L,
+        0x0440004080102080L, 0x0140400080802000L, 0x0310080020002400L, 0x8008090100201004L,
+        0x0040110100080005L, 0x1000020080800400L, 0x400100090022000CL, 0x2024802080104900L,
+        0x82004004838000A1L, 0x0090002000404001L, 0x4200801000802002L, 0x00080A0022001240L,
+        0x0001000801001006L, 0x0000040080800200L, 0x1800102844004102L, 0x00800100420000A4L,
+        0x1240044180238000L, 0x0500201000404000L, 0x0440200041010015L, 0x0212004008220010L,
+        0x1090080004008080L, 0x0044000200808004L, 0x0004281982040010L, 0x4000210040820004L,
+        0x00018000C0006180L, 0x0000200080400080L, 0x0020001100204100L, 0x0020081004210100L,
+        0x5000800800040080L, 0x0002000204008080L, 0x0200025001280400L, 0x0000004104008200L,
+        0x2280281145008001L, 0x0800400301388021L, 0x008D082001001045L, 0x4021210004100009L,
+        0x402200100448606AL, 0x00E2000110088402L, 0x0000100208213084L, 0x0C08040840208102L
+    };
+    private static final int[] rookShifts = new int[64];
+    private static final long[][] rookAttacks = new long[64][];
+
+    private static final long[] bishopMasks = new long[64];
+    private static final long[] bishopMagics = {
+        0xC008200800890210L, 0x1005015214010000L, 0x21080094008C4500L, 0x0004041482024001L,
+        0x0801104005000800L, 0x0012080209520008L, 0x800A020202420020L, 0x0000420044024000L,
+        0x210010AA10840280L, 0x0100500141010200L, 0x0000A808D1020020L, 0x0100040400846028L,
+        0x8000011041200100L, 0x80124A0822081000L, 0x0100042208020808L, 0x2000D84402080341L,
+        0x004000191A080249L, 0x0082001104010400L, 0x4008101000202020L, 0x4030801802004202L,
+        0x3044808400A04001L, 0x2202010841100100L, 0x080A000082412004L, 0x0301000244208410L,
+        0xC020082005100400L, 0x20A1202009280D01L, 0x00CC020001120400L, 0x000040400C010200L,
+        0x0002840031822008L, 0x110C010000900080L, 0x000224003208A248L, 0x00210211490C8080L,
+        0x001108A040482002L, 0x0C76186080820200L, 0x0049044104880800L, 0x2001020080480080L,
+        0x8C200A0080806480L, 0x0408010840080801L, 0x000400A410008421L, 0x0044008020808408L,
+        0x000801C420101040L, 0x000100D820040440L, 0x00008CA088001000L, 0x0004042038002700L,
+        0x3000201A00800412L, 0x8001114101000200L, 0x000801DC04000085L, 0x0102108410800D02L,
+        0x4020611820500001L, 0x100A010101310980L, 0x0000020100A20008L, 0x0C00080020A80110L,
+        0x0C00806405040800L, 0x0000A00490008200L, 0x0010310648084281L, 0x4008084810424002L,
+        0x8000C0425C202002L, 0x00A2008200822000L, 0x8000000884108800L, 0x0201020904208800L,
+        0x0110000240048848L, 0x70000A4810104220L, 0x0804201504409400L, 0x00100206082E0010L
+    };
+    private static final int[] bishopShifts = new int[64];
+    private static final long[][] bishopAttacks = new long[64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            initSquare(square, ROOK_DIRECTIONS, rookMasks, rookMagics, rookShifts, rookAttacks);
+            initSquare(square, BISHOP_DIRECTIONS, bishopMasks, bishopMagics, bishopShifts, bishopAttacks);
+        }
+    }
+
+
+    /**
+     * Gets the squares attacked by a rook, including the first blocking piece in each direction.
+     * @param square index of the rook (row * 8 + col)
+     * @param occupied bitboard of all pieces on the board
+     * @return bitboard of attacked squares
+     */
+    public static long getRookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & rookMasks[square]) * rookMagics[square]) >>> rookShifts[square]);
+        return rookAttacks[square][index];
+    }
+
+
+    /**
+     * Gets the squares attacked by a bishop, including the first blocking piece in each direction.
+     * @param square index of the bishop (row * 8 + col)
+     * @param occupied bitboard of all pieces on the board
+     * @return bitboard of attacked squares
+     */
+    public static long getBishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & bishopMasks[square]) * bishopMagics[square]) >>> bishopShifts[square]);
+        return bishopAttacks[square][index];
+    }
+
+
+    /**
+     * Gets the squares attacked by a queen, including the first blocking piece in each direction.
+     * @param square index of the queen (row * 8 + col)
+     * @param occupied bitboard of all pieces on the board
+     * @return bitboard of attacked squares
+     */
+    public static long getQueenAttacks(int square, long occupied) {
+        return getRookAttacks(square, occupied) | getBishopAttacks(square, occupied);
+    }
+
+
+    /**
+     * Fills the attack table of the square by enumerating every subset of its mask
+     * and computing the attacks for it by walking the rays.
+     */
+    private static void initSquare(int square, int[][] directions, long[] masks, long[] magics,
+                                   int[] shifts, long[][] attacks) {
+        long mask = relevantOccupancyMask(square, directions);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+
+        long subset = 0L;
+        do {
+            int index = (int) ((subset * magics[square]) >>> (64 - bits));
+            table[index] = slidingAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        } while (subset != 0L);
+
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        attacks[square] = table;
+    }
+
+
+    /**
+     * Squares whose occupancy affects the attacks from the square, the edges of each ray are left out
+     * since a piece there can not block anything further.
+     */
+    private static long relevantOccupancyMask(int square, int[][] directions) {
+        long mask = 0L;
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] direction : directions) {
+            int i = row + direction[0];
+            int j = col + direction[1];
+            while (i + direction[0] >= 0 && i + direction[0] < 8 && j + direction[1] >= 0 && j + direction[1] < 8) {
+                mask |= 1L << (i * 8 + j);
+                i += direction[0];
+                j += direction[1];
+            }
+        }
+        return mask;
+    }
+
+
+    /**
+     * Walks the rays square by square, used only for building the tables.
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacked = 0L;
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] direction : directions) {
+            int i = row + direction[0];
+            int j = col + direction[1];
+            while (i >= 0 && i < 8 && j >= 0 && j < 8) {
+                attacked |= 1L << (i * 8 + j);
+                if (((occupied >> (i * 8 + j)) & 1L) != 0L) {
+                    break;
+                }
+                i += direction[0];
+                j += direction[1];
+            }
+        }
+        return attacked;
+    }
+
+}
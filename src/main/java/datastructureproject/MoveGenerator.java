@@ -1,6 +1,6 @@
 package datastructureproject;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import chess.model.Side;
 
@@ -12,15 +12,33 @@ import chess.model.Side;
 public class MoveGenerator {
 
 
-    private String enpassantable;
-    private String castlingRights;
+    // more than the maximum number of legal moves in any chess position
+    public static final int MAX_MOVES = 256;
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = 0x8080808080808080L;
+
+    // squares that have to be empty for castling, and the squares the king passes that can not be attacked
+    private static final long WHITE_KINGSIDE_EMPTY = (1L << 5) | (1L << 6);
+    private static final long WHITE_QUEENSIDE_EMPTY = (1L << 1) | (1L << 2) | (1L << 3);
+    private static final long WHITE_QUEENSIDE_SAFE = (1L << 2) | (1L << 3);
+    private static final long BLACK_KINGSIDE_EMPTY = WHITE_KINGSIDE_EMPTY << 56;
+    private static final long BLACK_QUEENSIDE_EMPTY = WHITE_QUEENSIDE_EMPTY << 56;
+    private static final long BLACK_QUEENSIDE_SAFE = WHITE_QUEENSIDE_SAFE << 56;
+
+    private int enpassantable; // index of the pawn that can be captured en passant, or -1
+    private int castlingRights; // castling rights mask, see BitChessBoard
     private Side sideToMove;
 
-    private ArrayList<long[]> pinnedPieces; // [0] = rowPinned, [1] = colPinned, [2] = legal move 'ray'
+    private long pinned; // bitboard of pieces pinned to the king of the side to move
+    private long[] pinRays = new long[64]; // squares a pinned piece may move to, by square of the piece
 
     public int kingInCheck; // 0 = not in check, 1 = in check, 2 = double check
     private long attackers; // bitboard of checking pieces
-    private long inCheckLegalMoves; // bitboard of legal moves when in check
+    private long checkMask; // squares non-king pieces may move to, every square when not in check
+    private long pawnCheckMask; // checkMask plus the en passant square when the checker can be captured en passant
+    private long attackedSquares; // squares attacked by the opponent, seen through the king of the side to move
+    private boolean attackedSquaresComputed;
 
     public long whitePieces = 0L;
     public long blackPieces = 0L;
@@ -40,165 +58,365 @@ public class MoveGenerator {
     public long blackKing = 0L;
 
 
-    public MoveGenerator(long[] board, String enpassantable, String castlingRights, Side sideToMove) {
+    /**
+     * Creates a generator that can be reused for many positions with reset(),
+     * so that a search thread needs only one generator for its whole search.
+     */
+    public MoveGenerator() {
+    }
+
+
+    public MoveGenerator(long[] board, int enpassantable, int castlingRights, Side sideToMove) {
+        this.fillBitboards(board);
+        this.initialize(enpassantable, castlingRights, sideToMove);
+    }
+
+
+    /**
+     * Sets up the generator for a new position in place, without allocating anything.
+     * @param board board to generate moves for
+     * @param sideToMove side to move
+     */
+    public void reset(BitChessBoard board, Side sideToMove) {
+        this.whitePawns = board.whitePawns;
+        this.whiteKnights = board.whiteKnights;
+        this.whiteBishops = board.whiteBishops;
+        this.whiteRooks = board.whiteRooks;
+        this.whiteQueens = board.whiteQueens;
+        this.whiteKing = board.whiteKing;
+
+        this.blackPawns = board.blackPawns;
+        this.blackKnights = board.blackKnights;
+        this.blackBishops = board.blackBishops;
+        this.blackRooks = board.blackRooks;
+        this.blackQueens = board.blackQueens;
+        this.blackKing = board.blackKing;
+
+        this.whitePieces = this.whitePawns | this.whiteKnights | this.whiteBishops
+                           | this.whiteRooks | this.whiteQueens | this.whiteKing;
+        this.blackPieces = this.blackPawns | this.blackKnights | this.blackBishops
+                           | this.blackRooks | this.blackQueens | this.blackKing;
+
+        this.initialize(board.enpassantable, board.castlingRights, sideToMove);
+    }
+
+
+    private void initialize(int enpassantable, int castlingRights, Side sideToMove) {
         this.enpassantable = enpassantable;
         this.castlingRights = castlingRights;
         this.sideToMove = sideToMove;
-        this.pinnedPieces = new ArrayList<>();
+        this.attackedSquaresComputed = false;
 
-        this.fillBitboards(board);
-
-        this.kingInCheck = this.kingInCheck();
         this.attackers = this.checkAttackers();
-        this.getPinnedPieces();
+        this.kingInCheck = Long.bitCount(this.attackers);
+        this.findPinnedPieces();
+        this.computeCheckMask();
+    }
+
+
+    /**
+     * Gets the legal moves for the current board state.
+     * @return array of legal moves, encoded as in MoveParser.encodeMove()
+     */
+    public int[] getMoves() {
+        int[] moves = new int[MAX_MOVES];
+        return Arrays.copyOf(moves, this.getMoves(moves));
+    }
+
+
+    /**
+     * Writes the legal moves for the current board state into the given array, used by the search to avoid allocating.
+     * @param moves array of at least MAX_MOVES elements to write the moves to, encoded as in MoveParser.encodeMove()
+     * @return number of moves written
+     */
+    public int getMoves(int[] moves) {
+        return this.generateMoves(moves, ~0L, ~0L);
+    }
+
+
+    /**
+     * Gets only the legal captures and promotions for the current board state.
+     * @return array of legal captures and promotions, encoded as in MoveParser.encodeMove()
+     */
+    public int[] getCaptures() {
+        int[] moves = new int[MAX_MOVES];
+        return Arrays.copyOf(moves, this.getCaptures(moves));
+    }
+
+
+    /**
+     * Writes only the legal captures and promotions for the current board state into the given array,
+     * used by quiescence search.
+     * Quiet moves are masked out of each piece's move bitboard before any of them are encoded.
+     * @param moves array of at least MAX_MOVES elements to write the moves to, encoded as in MoveParser.encodeMove()
+     * @return number of moves written
+     */
+    public int getCaptures(int[] moves) {
+        long enemyPieces = this.sideToMove == Side.WHITE ? this.blackPieces : this.whitePieces;
+        long promotionRow = this.sideToMove == Side.WHITE ? 0xFF00000000000000L : 0xFFL;
+        long enpassantTarget = 0L;
+        if (this.enpassantable != -1) {
+            enpassantTarget = 1L << (this.sideToMove == Side.WHITE ? this.enpassantable + 8 : this.enpassantable - 8);
+        }
+        return this.generateMoves(moves, enemyPieces, enemyPieces | promotionRow | enpassantTarget);
+    }
+
+
+    /**
+     * Writes the legal moves that are not captures or promotions into the given array, the complement of getCaptures().
+     * Used with getCaptures() by the move picker of the search to generate the quiet moves only if they are needed.
+     * @param moves array of at least MAX_MOVES elements to write the moves to, encoded as in MoveParser.encodeMove()
+     * @return number of moves written
+     */
+    public int getQuiets(int[] moves) {
+        long empty = ~(this.whitePieces | this.blackPieces);
+        long promotionRow = this.sideToMove == Side.WHITE ? 0xFF00000000000000L : 0xFFL;
+        long enpassantTarget = 0L;
+        if (this.enpassantable != -1) {
+            enpassantTarget = 1L << (this.sideToMove == Side.WHITE ? this.enpassantable + 8 : this.enpassantable - 8);
+        }
+        return this.generateMoves(moves, empty, empty & ~promotionRow & ~enpassantTarget);
+    }
+
+
+    /**
+     * Checks if a move in compact format, for example from the transposition table, is legal in the current position
+     * without generating all the moves.
+     * @param compactMove move as in MoveParser.getCompact()
+     * @return the fully encoded move if it is legal, otherwise 0
+     */
+    public int getLegalMove(int compactMove) {
+        int from = MoveParser.getFrom(compactMove);
+        int to = MoveParser.getTo(compactMove);
+        int promotion = MoveParser.getPromotion(compactMove);
+
+        long ownPieces = this.sideToMove == Side.WHITE ? this.whitePieces : this.blackPieces;
+        if (compactMove == 0 || (ownPieces & (1L << from)) == 0L) {
+            return 0;
+        }
+
+        int piece = this.getPieceTypeAtIndex(from);
+        int row = from / 8;
+        int col = from % 8;
+        long destinations;
+        switch (piece % 6) {
+            case 0:
+                destinations = this.getPawnMovesBitBoard(row, col) & this.pawnCheckMask;
+                break;
+            case 1:
+                destinations = this.getKnightMovesBitBoard(row, col) & this.checkMask;
+                break;
+            case 2:
+                destinations = this.getBishopMovesBitBoard(row, col) & this.checkMask;
+                break;
+            case 3:
+                destinations = this.getRookMovesBitBoard(row, col) & this.checkMask;
+                break;
+            case 4:
+                destinations = this.getQueenMovesBitBoard(row, col) & this.checkMask;
+                break;
+            default:
+                destinations = this.getKingMovesBitBoard(row, col);
+                break;
+        }
+        if (piece % 6 != 5) {
+            destinations &= this.getPinMask(from);
+        }
+
+        boolean promotes = piece % 6 == 0 && (to < 8 || to >= 56);
+        if ((destinations & (1L << to)) == 0L || promotes != (promotion != 0)) {
+            return 0;
+        }
+        return this.encodeMove(from, to, piece) | (promotion << 12);
+    }
+
 
-        if (this.kingInCheck == 1) {
-            this.inCheckLegalMoves = this.getLegalMovesForNonKingPiecesWhenChecked(this.attackers);
+    /**
+     * Gets the squares attacked by the side not to move.
+     * Computed the first time it is needed and reused after that,
+     * positions where the king has no squares to go to never need it.
+     * Sliding attacks go through the king of the side to move,
+     * so squares behind the king on the line of a checking slider count as attacked.
+     * @return bitboard of attacked squares
+     */
+    public long getAttackedSquares() {
+        if (!this.attackedSquaresComputed) {
+            this.attackedSquares = this.computeAttackedSquares();
+            this.attackedSquaresComputed = true;
         }
+        return this.attackedSquares;
     }
 
 
     /**
-     * The one method to be called from outside the class to get the legal moves for the current board state.
-     * @return ArrayList of legal moves in UCI string format
+     * Generates the legal moves whose destination is in the given target squares.
+     * @param legalMoves array to write the moves to
+     * @param targets squares pieces other than pawns may move to
+     * @param pawnTargets squares pawns may move to
+     * @return number of moves written
      */
-    public ArrayList<String> getMoves() {
+    private int generateMoves(int[] legalMoves, long targets, long pawnTargets) {
 
-        ArrayList<String> legalMoves = new ArrayList<>();
+        int count = 0;
 
-        boolean inCheck = this.kingInCheck == 1;
+        int sideOffset = this.sideToMove == Side.WHITE ? 0 : 6;
 
         // if the king is in double check then only king moves are legal
         if (this.kingInCheck == 2) {
-            ArrayList<int[]> kingCoords = getCoordinatesFromBitboard(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
-            int kingRow = kingCoords.get(0)[0];
-            int kingCol = kingCoords.get(0)[1];
-            long kingMoves = this.getKingMovesBitBoard(kingRow, kingCol);
-            ArrayList<int[]> kingMovesCoords = getCoordinatesFromBitboard(kingMoves);
-            ArrayList<String> kingMovesUCI = MoveParser.coordsToMoves(kingRow, kingCol, kingMovesCoords, false);
-            legalMoves.addAll(kingMovesUCI);
-        } else {
-            // if not in double check then get moves for all pieces
-            if (this.sideToMove == Side.WHITE) {
-                ArrayList<int[]> pawnCoords = getCoordinatesFromBitboard(this.whitePawns);
-                for (int[] coords : pawnCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    boolean promote = false;
-                    if (coords[0] == 6) {
-                        promote = true;
-                    }
-                    long pawnMoves = this.getPawnMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> pawnMovesCoords = getCoordinatesFromBitboard(pawnMoves);
-                    ArrayList<String> pawnMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], pawnMovesCoords, promote);
-                    legalMoves.addAll(pawnMovesUCI);
-                }
-                ArrayList<int[]> knightCoords = getCoordinatesFromBitboard(this.whiteKnights);
-                for (int[] coords : knightCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long knightMoves = this.getKnightMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> knightMovesCoords = getCoordinatesFromBitboard(knightMoves);
-                    ArrayList<String> knightMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], knightMovesCoords, false);
-                    legalMoves.addAll(knightMovesUCI);
-                }
-                ArrayList<int[]> bishopCoords = getCoordinatesFromBitboard(this.whiteBishops);
-                for (int[] coords : bishopCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long bishopMoves = this.getBishopMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> bishopMovesCoords = getCoordinatesFromBitboard(bishopMoves);
-                    ArrayList<String> bishopMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], bishopMovesCoords, false);
-                    legalMoves.addAll(bishopMovesUCI);
-                }
-                ArrayList<int[]> rookCoords = getCoordinatesFromBitboard(this.whiteRooks);
-                for (int[] coords : rookCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long rookMoves = this.getRookMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> rookMovesCoords = getCoordinatesFromBitboard(rookMoves);
-                    ArrayList<String> rookMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], rookMovesCoords, false);
-                    legalMoves.addAll(rookMovesUCI);
-                }
-                ArrayList<int[]> queenCoords = getCoordinatesFromBitboard(this.whiteQueens);
-                for (int[] coords : queenCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long queenMoves = this.getQueenMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> queenMovesCoords = getCoordinatesFromBitboard(queenMoves);
-                    ArrayList<String> queenMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], queenMovesCoords, false);
-                    legalMoves.addAll(queenMovesUCI);
-                }
-                ArrayList<int[]> kingCoords = getCoordinatesFromBitboard(this.whiteKing);
-                for (int[] coords : kingCoords) {
-                    long kingMoves = this.getKingMovesBitBoard(coords[0], coords[1]);
-                    ArrayList<int[]> kingMovesCoords = getCoordinatesFromBitboard(kingMoves);
-                    ArrayList<String> kingMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], kingMovesCoords, false);
-                    legalMoves.addAll(kingMovesUCI);
+            int kingIndex = Long.numberOfTrailingZeros(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
+            long kingMoves = this.getKingMovesBitBoard(kingIndex / 8, kingIndex % 8) & targets;
+            count = this.addMoves(legalMoves, count, kingIndex, kingMoves, sideOffset + 5);
+            return count;
+        }
+
+        // if not in double check then get moves for all pieces
+        long pawns = this.sideToMove == Side.WHITE ? this.whitePawns : this.blackPawns;
+        while (pawns != 0L) {
+            int index = Long.numberOfTrailingZeros(pawns);
+            long pawnMoves = this.getPawnMovesBitBoard(index / 8, index % 8) & this.pawnCheckMask
+                             & this.getPinMask(index) & pawnTargets;
+            count = this.addMoves(legalMoves, count, index, pawnMoves, sideOffset);
+            pawns &= pawns - 1;
+        }
+        long knights = this.sideToMove == Side.WHITE ? this.whiteKnights : this.blackKnights;
+        while (knights != 0L) {
+            int index = Long.numberOfTrailingZeros(knights);
+            long knightMoves = this.getKnightMovesBitBoard(index / 8, index % 8) & this.checkMask
+                               & this.getPinMask(index) & targets;
+            count = this.addMoves(legalMoves, count, index, knightMoves, sideOffset + 1);
+            knights &= knights - 1;
+        }
+        long bishops = this.sideToMove == Side.WHITE ? this.whiteBishops : this.blackBishops;
+        while (bishops != 0L) {
+            int index = Long.numberOfTrailingZeros(bishops);
+            long bishopMoves = this.getBishopMovesBitBoard(index / 8, index % 8) & this.checkMask
+                               & this.getPinMask(index) & targets;
+            count = this.addMoves(legalMoves, count, index, bishopMoves, sideOffset + 2);
+            bishops &= bishops - 1;
+        }
+        long rooks = this.sideToMove == Side.WHITE ? this.whiteRooks : this.blackRooks;
+        while (rooks != 0L) {
+            int index = Long.numberOfTrailingZeros(rooks);
+            long rookMoves = this.getRookMovesBitBoard(index / 8, index % 8) & this.checkMask
+                             & this.getPinMask(index) & targets;
+            count = this.addMoves(legalMoves, count, index, rookMoves, sideOffset + 3);
+            rooks &= rooks - 1;
+        }
+        long queens = this.sideToMove == Side.WHITE ? this.whiteQueens : this.blackQueens;
+        while (queens != 0L) {
+            int index = Long.numberOfTrailingZeros(queens);
+            long queenMoves = this.getQueenMovesBitBoard(index / 8, index % 8) & this.checkMask
+                              & this.getPinMask(index) & targets;
+            count = this.addMoves(legalMoves, count, index, queenMoves, sideOffset + 4);
+            queens &= queens - 1;
+        }
+        int kingIndex = Long.numberOfTrailingZeros(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
+        long kingMoves = this.getKingMovesBitBoard(kingIndex / 8, kingIndex % 8) & targets;
+        count = this.addMoves(legalMoves, count, kingIndex, kingMoves, sideOffset + 5);
+        
+        return count;
+        
+    }
+
+
+    /**
+     * Helper function for generateMoves()
+     * Encodes the moves of a piece to each destination and adds them to the array,
+     * pawn moves to the last row are added as four promotions.
+     * @param moves array to add the moves to
+     * @param count number of moves already in the array
+     * @param from index of the square the piece moves from
+     * @param destinations bitboard of squares the piece can move to
+     * @param piece type of the moving piece
+     * @return number of moves in the array after adding
+     */
+    private int addMoves(int[] moves, int count, int from, long destinations, int piece) {
+        boolean pawn = piece == 0 || piece == 6;
+        while (destinations != 0L) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            int move = this.encodeMove(from, to, piece);
+            if (pawn && (to < 8 || to >= 56)) {
+                for (int promotion = 1; promotion <= 4; promotion++) {
+                    moves[count++] = move | (promotion << 12);
                 }
             } else {
-                ArrayList<int[]> pawnCoords = getCoordinatesFromBitboard(this.blackPawns);
-                for (int[] coords : pawnCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    boolean promote = false;
-                    if (coords[0] == 1) {
-                        promote = true;
-                    }
-                    long pawnMoves = this.getPawnMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> pawnMovesCoords = getCoordinatesFromBitboard(pawnMoves);
-                    ArrayList<String> pawnMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], pawnMovesCoords, promote);
-                    legalMoves.addAll(pawnMovesUCI);
-                }
-                ArrayList<int[]> knightCoords = getCoordinatesFromBitboard(this.blackKnights);
-                for (int[] coords : knightCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long knightMoves = this.getKnightMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> knightMovesCoords = getCoordinatesFromBitboard(knightMoves);
-                    ArrayList<String> knightMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], knightMovesCoords, false);
-                    legalMoves.addAll(knightMovesUCI);
-                }
-                ArrayList<int[]> bishopCoords = getCoordinatesFromBitboard(this.blackBishops);
-                for (int[] coords : bishopCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long bishopMoves = this.getBishopMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> bishopMovesCoords = getCoordinatesFromBitboard(bishopMoves);
-                    ArrayList<String> bishopMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], bishopMovesCoords, false);
-                    legalMoves.addAll(bishopMovesUCI);
-                }
-                ArrayList<int[]> rookCoords = getCoordinatesFromBitboard(this.blackRooks);
-                for (int[] coords : rookCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long rookMoves = this.getRookMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> rookMovesCoords = getCoordinatesFromBitboard(rookMoves);
-                    ArrayList<String> rookMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], rookMovesCoords, false);
-                    legalMoves.addAll(rookMovesUCI);
-                }
-                ArrayList<int[]> queenCoords = getCoordinatesFromBitboard(this.blackQueens);
-                for (int[] coords : queenCoords) {
-                    boolean pinned = this.isPinned(coords[0], coords[1]);
-                    long queenMoves = this.getQueenMovesBitBoard(coords[0], coords[1], inCheck, pinned);
-                    ArrayList<int[]> queenMovesCoords = getCoordinatesFromBitboard(queenMoves);
-                    ArrayList<String> queenMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], queenMovesCoords, false);
-                    legalMoves.addAll(queenMovesUCI);
-                }
-                ArrayList<int[]> kingCoords = getCoordinatesFromBitboard(this.blackKing);
-                for (int[] coords : kingCoords) {
-                    long kingMoves = this.getKingMovesBitBoard(coords[0], coords[1]);
-                    ArrayList<int[]> kingMovesCoords = getCoordinatesFromBitboard(kingMoves);
-                    ArrayList<String> kingMovesUCI = MoveParser.coordsToMoves(coords[0], coords[1], kingMovesCoords, false);
-                    legalMoves.addAll(kingMovesUCI);
-                }
+                moves[count++] = move;
             }
+            destinations &= destinations - 1;
         }
-        
-        return legalMoves;
-        
+        return count;
     }
 
 
-    private boolean isPinned(int row, int col) {
-        //check if the piece is pinned by seeing if row and col match any of the pinned pieces
-        for (long[] pinnedPiece : this.pinnedPieces) {
-            if (pinnedPiece[0] == row && pinnedPiece[1] == col) {
-                return true;
-            }
+    /**
+     * Helper function for addMoves() and getLegalMove()
+     * Encodes a move without promotion, finding the captured piece and the special move flags.
+     * @param from index of the square the piece moves from
+     * @param to index of the square the piece moves to
+     * @param piece type of the moving piece
+     * @return encoded move
+     */
+    private int encodeMove(int from, int to, int piece) {
+        int captured = this.getPieceTypeAtIndex(to);
+        int flags = 0;
+        if (piece == 0 || piece == 6) {
+            if (Math.abs(to - from) == 16) {
+                flags = MoveParser.DOUBLE_PAWN_PUSH;
+            } else if ((to - from) % 8 != 0 && captured == MoveParser.NO_PIECE) {
+                flags = MoveParser.EN_PASSANT;
+                captured = piece == 0 ? 6 : 0;
+            }
+        } else if ((piece == 5 || piece == 11) && Math.abs(to - from) == 2) {
+            flags = MoveParser.CASTLING;
+        }
+        return MoveParser.encodeMove(from, to, piece, captured, 0, flags);
+    }
+
+
+    /**
+     * Helper function for addMoves()
+     * @param index index of the square
+     * @return type of the piece on the square in the order of BitChessBoard.getBoard(), or NO_PIECE if empty
+     */
+    private int getPieceTypeAtIndex(int index) {
+        long square = 1L << index;
+        if (((this.whitePieces | this.blackPieces) & square) == 0L) {
+            return MoveParser.NO_PIECE;
+        } else if ((this.whitePawns & square) != 0L) {
+            return 0;
+        } else if ((this.whiteKnights & square) != 0L) {
+            return 1;
+        } else if ((this.whiteBishops & square) != 0L) {
+            return 2;
+        } else if ((this.whiteRooks & square) != 0L) {
+            return 3;
+        } else if ((this.whiteQueens & square) != 0L) {
+            return 4;
+        } else if ((this.whiteKing & square) != 0L) {
+            return 5;
+        } else if ((this.blackPawns & square) != 0L) {
+            return 6;
+        } else if ((this.blackKnights & square) != 0L) {
+            return 7;
+        } else if ((this.blackBishops & square) != 0L) {
+            return 8;
+        } else if ((this.blackRooks & square) != 0L) {
+            return 9;
+        } else if ((this.blackQueens & square) != 0L) {
+            return 10;
+        } else {
+            return 11;
         }
-        return false;
+    }
+
+
+    /**
+     * Helper function for generateMoves()
+     * @param index index of the square of a piece of the side to move
+     * @return squares the piece may move to without exposing the king, every square if it is not pinned
+     */
+    private long getPinMask(int index) {
+        return (this.pinned & (1L << index)) == 0L ? ~0L : this.pinRays[index];
     }
 
 
@@ -220,23 +438,22 @@ public class MoveGenerator {
      */
     private long checkAttackers() {
 
-        ArrayList<int[]> kingCoords = getCoordinatesFromBitboard(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
-
-        int kingRow = kingCoords.get(0)[0];
-        int kingCol = kingCoords.get(0)[1];
+        boolean white = this.sideToMove == Side.WHITE;
+        int kingIndex = Long.numberOfTrailingZeros(white ? this.whiteKing : this.blackKing);
+        long occupied = this.whitePieces | this.blackPieces;
 
         long attackers = 0L;
 
-        if (this.sideToMove == Side.WHITE) {
-            attackers = (this.getBishopMovesBitBoard(kingRow, kingCol, false, false) & (this.blackBishops | this.blackQueens))
-                | (this.getRookMovesBitBoard(kingRow, kingCol, false, false) & (this.blackRooks | this.blackQueens))
-                | (this.getKnightMovesBitBoard(kingRow, kingCol, false, false) & this.blackKnights)
-                | (this.getPawnMovesBitBoard(kingRow, kingCol, false, false) & this.blackPawns);
+        if (white) {
+            attackers = (MagicBitboards.getBishopAttacks(kingIndex, occupied) & (this.blackBishops | this.blackQueens))
+                | (MagicBitboards.getRookAttacks(kingIndex, occupied) & (this.blackRooks | this.blackQueens))
+                | (AttackTables.getKnightAttacks(kingIndex) & this.blackKnights)
+                | (AttackTables.getPawnAttacks(kingIndex, true) & this.blackPawns);
         } else {
-            attackers = (this.getBishopMovesBitBoard(kingRow, kingCol, false, false) & (this.whiteBishops | this.whiteQueens))
-                | (this.getRookMovesBitBoard(kingRow, kingCol, false, false) & (this.whiteRooks | this.whiteQueens))
-                | (this.getKnightMovesBitBoard(kingRow, kingCol, false, false) & this.whiteKnights)
-                | (this.getPawnMovesBitBoard(kingRow, kingCol, false, false) & this.whitePawns);
+            attackers = (MagicBitboards.getBishopAttacks(kingIndex, occupied) & (this.whiteBishops | this.whiteQueens))
+                | (MagicBitboards.getRookAttacks(kingIndex, occupied) & (this.whiteRooks | this.whiteQueens))
+                | (AttackTables.getKnightAttacks(kingIndex) & this.whiteKnights)
+                | (AttackTables.getPawnAttacks(kingIndex, false) & this.whitePawns);
         }
 
         return attackers;
@@ -244,121 +461,106 @@ public class MoveGenerator {
 
 
     /**
-     * Finds all pinned pieces for the side to move and stores them in the pinnedPieces list.
-     * Does this by finding sliding moves from the kings position if it were opposite side to move and intersecting with the pieces of the side to move.
-     * Any pieces in the overlap are potentially pinned.
-     * The piece can then be removed and we can see if it results in check then it is pinned.
+     * Finds all pinned pieces for the side to move in one pass.
+     * Sliding attacks from the king that only see enemy pieces x-ray through own pieces to the possible pinners,
+     * an own piece is pinned when it is the only piece between the king and an enemy slider attacking along that line.
+     * The pinned piece may only move along the ray between the king and the pinner, or capture the pinner.
      */
-    private void getPinnedPieces() {
-
-        ArrayList<int[]> kingCoords = getCoordinatesFromBitboard(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
-
-        int kingRow = kingCoords.get(0)[0];
-        int kingCol = kingCoords.get(0)[1];
+    private void findPinnedPieces() {
 
-        long kingSlidingMoves = 0L;
+        boolean white = this.sideToMove == Side.WHITE;
+        int kingIndex = Long.numberOfTrailingZeros(white ? this.whiteKing : this.blackKing);
+        long ownPieces = white ? this.whitePieces : this.blackPieces;
+        long enemyPieces = white ? this.blackPieces : this.whitePieces;
+        long enemyDiagonal = white ? this.blackBishops | this.blackQueens : this.whiteBishops | this.whiteQueens;
+        long enemyStraight = white ? this.blackRooks | this.blackQueens : this.whiteRooks | this.whiteQueens;
 
-        this.sideToMove = this.sideToMove == Side.WHITE ? Side.BLACK : Side.WHITE;
-        kingSlidingMoves = this.getQueenMovesBitBoard(kingRow, kingCol, false, false);
-        this.sideToMove = this.sideToMove == Side.WHITE ? Side.BLACK : Side.WHITE;
+        long pinners = (MagicBitboards.getBishopAttacks(kingIndex, enemyPieces) & enemyDiagonal)
+            | (MagicBitboards.getRookAttacks(kingIndex, enemyPieces) & enemyStraight);
 
-        long pinnedPiecesMaybe;
+        this.pinned = 0L;
 
-        if (this.sideToMove == Side.WHITE) {
-            pinnedPiecesMaybe = kingSlidingMoves & this.whitePieces;
-        } else {
-            pinnedPiecesMaybe = kingSlidingMoves & this.blackPieces;
-        }
-
-        if (pinnedPiecesMaybe == 0L) {
-            return;
+        while (pinners != 0L) {
+            int pinnerIndex = Long.numberOfTrailingZeros(pinners);
+            long ray = AttackTables.getBetween(kingIndex, pinnerIndex);
+            long blockers = ray & (ownPieces | enemyPieces);
+            if (Long.bitCount(blockers) == 1 && (blockers & ownPieces) != 0L) {
+                this.pinned |= blockers;
+                this.pinRays[Long.numberOfTrailingZeros(blockers)] = ray | (1L << pinnerIndex);
+            }
+            pinners &= pinners - 1;
         }
+    }
 
-        ArrayList<int[]> pinnedPieceCoords = getCoordinatesFromBitboard(pinnedPiecesMaybe);
-
-        for (int[] coords : pinnedPieceCoords) {
-            /*for each pinned piece, remove the pinned piece from the board, 
-            find the attackers coords and type, intersect the moves of the attacker with moves 
-            of the same type from the king plus the attackers coords to make the legal moves 'ray', 
-            then put the pinned piece back on the board
-             */ 
-            long attackersBefore = this.checkAttackers();
-
-            long pinned = 1L << (coords[0] * 8 + coords[1]);
 
-            if (this.sideToMove == Side.WHITE) {
-                this.whitePieces = this.whitePieces & ~pinned;
-            } else {
-                this.blackPieces = this.blackPieces & ~pinned;
-            }
+    /**
+     * Computes the squares non-king pieces may move to.
+     * In single check they have to capture the checking piece or block the ray between it and the king,
+     * pawns may also capture a checking pawn en passant.
+     */
+    private void computeCheckMask() {
 
-            long attackersAfter = this.checkAttackers();
-            long attacker = attackersBefore ^ attackersAfter;
+        this.checkMask = ~0L;
+        this.pawnCheckMask = ~0L;
 
-            if (attacker == 0L) {
-                if (this.sideToMove == Side.WHITE) {
-                    this.whitePieces |= pinned;
-                } else {
-                    this.blackPieces |= pinned;
-                }
-                continue;
-            }
+        if (this.kingInCheck == 0) {
+            return;
+        }
+        if (this.kingInCheck == 2) {
+            this.checkMask = 0L;
+            this.pawnCheckMask = 0L;
+            return;
+        }
 
-            long legalMoves = this.getLegalMovesForNonKingPiecesWhenChecked(attacker);
+        int kingIndex = Long.numberOfTrailingZeros(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
+        int attackerIndex = Long.numberOfTrailingZeros(this.attackers);
 
-            if (this.sideToMove == Side.WHITE) {
-                this.whitePieces |= pinned;
-            } else {
-                this.blackPieces |= pinned;
-            }
+        this.checkMask = AttackTables.getBetween(kingIndex, attackerIndex) | this.attackers;
+        this.pawnCheckMask = this.checkMask;
 
-            this.pinnedPieces.add(new long[]{coords[0], coords[1], legalMoves});
+        if (attackerIndex == this.enpassantable) {
+            this.pawnCheckMask |= 1L << (this.sideToMove == Side.WHITE ? attackerIndex + 8 : attackerIndex - 8);
         }
     }
 
 
     /**
-     * Helper function for getPinnedPieces()
-     * intersects the moves of the attacker with moves of the 
-     * same piece type from the king plus the attackers coords to make the legal moves 'ray'
-     * @return bitboard of legal moves
+     * Computes the squares attacked by the side not to move.
+     * The king of the side to move is removed from the occupancy,
+     * so that it cannot step back along the line of a slider checking it.
+     * @return bitboard of attacked squares
      */
-    private long getLegalMovesForNonKingPiecesWhenChecked(long attacker) {
-
-        ArrayList<int[]> kingCoords = getCoordinatesFromBitboard(this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing);
+    private long computeAttackedSquares() {
 
-        int kingRow = kingCoords.get(0)[0];
-        int kingCol = kingCoords.get(0)[1];
+        boolean white = this.sideToMove == Side.WHITE;
+        long occupied = (this.whitePieces | this.blackPieces) & ~(white ? this.whiteKing : this.blackKing);
 
-        ArrayList<int[]> attackerCoords = getCoordinatesFromBitboard(attacker);
-
-        int attackerRow = attackerCoords.get(0)[0];
-        int attackerCol = attackerCoords.get(0)[1];
-
-        long legalMoves = 0L;
+        long pawns = white ? this.blackPawns : this.whitePawns;
+        long attacks;
+        if (white) {
+            attacks = ((pawns & ~FILE_A) >>> 9) | ((pawns & ~FILE_H) >>> 7);
+        } else {
+            attacks = ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+        }
 
-        if ((attacker & this.blackRooks) != 0L || (attacker & this.whiteRooks) != 0L) {
-            legalMoves = this.getRookMovesBitBoard(kingRow, kingCol, false, false);
-            legalMoves &= this.getRookMovesBitBoard(attackerRow, attackerCol, false, false) | attacker;
-        } else if ((attacker & this.blackBishops) != 0L || (attacker & this.whiteBishops) != 0L) {
-            legalMoves = this.getBishopMovesBitBoard(kingRow, kingCol, false, false);
-            legalMoves &= this.getBishopMovesBitBoard(attackerRow, attackerCol, false, false) | attacker;
-        } else if ((attacker & this.blackQueens) != 0L || (attacker & this.whiteQueens) != 0L) {
-            //if queen is not on same file or rank, the bishop moves, otherwise the rook moves
-            if (attackerRow != kingRow && attackerCol != kingCol) {
-                legalMoves = this.getBishopMovesBitBoard(kingRow, kingCol, false, false);
-                legalMoves &= this.getBishopMovesBitBoard(attackerRow, attackerCol, false, false) | attacker;
-            } else {
-                legalMoves = this.getRookMovesBitBoard(kingRow, kingCol, false, false);
-                legalMoves &= this.getRookMovesBitBoard(attackerRow, attackerCol, false, false) | attacker;
-            }
-        } else if ((attacker & this.blackKnights) != 0L || (attacker & this.whiteKnights) != 0L) {
-            legalMoves = attacker;
-        } else if ((attacker & this.blackPawns) != 0L || (attacker & this.whitePawns) != 0L) {
-            legalMoves = attacker;
+        long knights = white ? this.blackKnights : this.whiteKnights;
+        while (knights != 0L) {
+            attacks |= AttackTables.getKnightAttacks(Long.numberOfTrailingZeros(knights));
+            knights &= knights - 1;
         }
+        long diagonal = white ? this.blackBishops | this.blackQueens : this.whiteBishops | this.whiteQueens;
+        while (diagonal != 0L) {
+            attacks |= MagicBitboards.getBishopAttacks(Long.numberOfTrailingZeros(diagonal), occupied);
+            diagonal &= diagonal - 1;
+        }
+        long straight = white ? this.blackRooks | this.blackQueens : this.whiteRooks | this.whiteQueens;
+        while (straight != 0L) {
+            attacks |= MagicBitboards.getRookAttacks(Long.numberOfTrailingZeros(straight), occupied);
+            straight &= straight - 1;
+        }
+        attacks |= AttackTables.getKingAttacks(Long.numberOfTrailingZeros(white ? this.blackKing : this.whiteKing));
 
-        return legalMoves;
+        return attacks;
     }
 
 
@@ -370,214 +572,51 @@ public class MoveGenerator {
      */
     private long getKingMovesBitBoard(int row, int col) {
 
-        long kingmoves = 0L;
+        long ownPieces = this.sideToMove == Side.WHITE ? this.whitePieces : this.blackPieces;
+        long occupied = this.whitePieces | this.blackPieces;
 
-        long coveredByOppKing = this.getOppositeKingCoveredSquares();
+        long kingmoves = AttackTables.getKingAttacks(row * 8 + col) & ~ownPieces;
+        int sideRights = this.sideToMove == Side.WHITE
+            ? BitChessBoard.WHITE_KINGSIDE | BitChessBoard.WHITE_QUEENSIDE
+            : BitChessBoard.BLACK_KINGSIDE | BitChessBoard.BLACK_QUEENSIDE;
+        boolean canCastle = this.kingInCheck == 0 && (this.castlingRights & sideRights) != 0;
 
-        if (this.sideToMove == Side.WHITE) {
-            if (row + 1 < 8) {
-                if (((this.whitePieces >> ((row + 1) * 8 + col)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row + 1) * 8 + col)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row + 1, col)) {
-                            kingmoves |= 1L << ((row + 1) * 8 + col);
-                        }
-                    }
-                }
-            }
-            if (row - 1 >= 0) {
-                if (((this.whitePieces >> ((row - 1) * 8 + col)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row - 1) * 8 + col)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row - 1, col)) {
-                            kingmoves |= 1L << ((row - 1) * 8 + col);
-                        }
-                    }
-                }
-            }
-            if (col + 1 < 8) {
-                if (((this.whitePieces >> (row * 8 + col + 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> (row * 8 + col + 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row, col + 1)) {
-                            kingmoves |= 1L << (row * 8 + col + 1);
-                        }
-                    }
-                }
-            }
-            if (col - 1 >= 0) {
-                if (((this.whitePieces >> (row * 8 + col - 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> (row * 8 + col - 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row, col - 1)) {
-                            kingmoves |= 1L << (row * 8 + col - 1);
-                        }
-                    }
-                }
-            }
-            if (row + 1 < 8 && col + 1 < 8) {
-                if (((this.whitePieces >> ((row + 1) * 8 + col + 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row + 1) * 8 + col + 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row + 1, col + 1)) {
-                            kingmoves |= 1L << ((row + 1) * 8 + col + 1);
-                        }
-                    }
-                }
-            }
-            if (row + 1 < 8 && col - 1 >= 0) {
-                if (((this.whitePieces >> ((row + 1) * 8 + col - 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row + 1) * 8 + col - 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row + 1, col - 1)) {
-                            kingmoves |= 1L << ((row + 1) * 8 + col - 1);
-                        }
-                    }
-                }
-            }
-            if (row - 1 >= 0 && col + 1 < 8) {
-                if (((this.whitePieces >> ((row - 1) * 8 + col + 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row - 1) * 8 + col + 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row - 1, col + 1)) {
-                            kingmoves |= 1L << ((row - 1) * 8 + col + 1);
-                        }
-                    }
-                }
-            }
-            if (row - 1 >= 0 && col - 1 >= 0) {
-                if (((this.whitePieces >> ((row - 1) * 8 + col - 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row - 1) * 8 + col - 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row - 1, col - 1)) {
-                            kingmoves |= 1L << ((row - 1) * 8 + col - 1);
-                        }
-                    }
-                }
-            }
-        } else {
-            if (row + 1 < 8) {
-                if (((this.blackPieces >> ((row + 1) * 8 + col)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row + 1) * 8 + col)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row + 1, col)) {
-                            kingmoves |= 1L << ((row + 1) * 8 + col);
-                        }
-                    }
-                }
-            }
-            if (row - 1 >= 0) {
-                if (((this.blackPieces >> ((row - 1) * 8 + col)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row - 1) * 8 + col)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row - 1, col)) {
-                            kingmoves |= 1L << ((row - 1) * 8 + col);
-                        }
-                    }
-                }
-            }
-            if (col + 1 < 8) {
-                if (((this.blackPieces >> (row * 8 + col + 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> (row * 8 + col + 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row, col + 1)) {
-                            kingmoves |= 1L << (row * 8 + col + 1);
-                        }
-                    }
-                }
-            }
-            if (col - 1 >= 0) {
-                if (((this.blackPieces >> (row * 8 + col - 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> (row * 8 + col - 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row, col - 1)) {
-                            kingmoves |= 1L << (row * 8 + col - 1);
-                        }
-                    }
-                }
-            }
-            if (row + 1 < 8 && col + 1 < 8) {
-                if (((this.blackPieces >> ((row + 1) * 8 + col + 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row + 1) * 8 + col + 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row + 1, col + 1)) {
-                            kingmoves |= 1L << ((row + 1) * 8 + col + 1);
-                        }
-                    }
-                }
-            }
-            if (row + 1 < 8 && col - 1 >= 0) {
-                if (((this.blackPieces >> ((row + 1) * 8 + col - 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row + 1) * 8 + col - 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row + 1, col - 1)) {
-                            kingmoves |= 1L << ((row + 1) * 8 + col - 1);
-                        }
-                    }
-                }
-            }
-            if (row - 1 >= 0 && col + 1 < 8) {
-                if (((this.blackPieces >> ((row - 1) * 8 + col + 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row - 1) * 8 + col + 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row - 1, col + 1)) {
-                            kingmoves |= 1L << ((row - 1) * 8 + col + 1);
-                        }
-                    }
-                }
-            }
-            if (row - 1 >= 0 && col - 1 >= 0) {
-                if (((this.blackPieces >> ((row - 1) * 8 + col - 1)) & 1L) == 0L) {
-                    if (((coveredByOppKing >> ((row - 1) * 8 + col - 1)) & 1L) == 0L) {
-                        if (!this.kingInCheckAfterMove(row - 1, col - 1)) {
-                            kingmoves |= 1L << ((row - 1) * 8 + col - 1);
-                        }
-                    }
-                }
-            }
+        if (kingmoves == 0L && !canCastle) {
+            return kingmoves;
         }
 
-        // check if king is in check so need to find castling moves
-        if (this.kingInCheck > 0) {
+        long attacked = this.getAttackedSquares();
+        kingmoves &= ~attacked;
+
+        // castling is not possible out of check
+        if (!canCastle) {
             return kingmoves;
         }
 
-        //if king is not in check then check for castling moves
+        // the squares between the king and the rook have to be empty,
+        // and the squares the king passes can not be attacked
         if (this.sideToMove == Side.WHITE) {
-            if (row == 0 && col == 4 && (this.castlingRights.contains("K") || this.castlingRights.contains("Q"))) {
-                if ((((this.whiteRooks >> (0 * 8 + 7)) & 1L) > 0) && this.castlingRights.contains("K")) {
-                    if (((this.whitePieces >> (0 * 8 + 5)) & 1L) == 0L && ((this.whitePieces >> (0 * 8 + 6)) & 1L) == 0L) {
-                        if (((this.blackPieces >> (0 * 8 + 5)) & 1L) == 0L && ((this.blackPieces >> (0 * 8 + 6)) & 1L) == 0L) {
-                            if (((coveredByOppKing >> (0 * 8 + 5)) & 1L) == 0L && ((coveredByOppKing >> (0 * 8 + 6)) & 1L) == 0L) {
-                                if (!this.kingInCheckAfterMove(0, 5) && !this.kingInCheckAfterMove(0, 6)) {
-                                    kingmoves |= 1L << (0 * 8 + 6);
-                                }
-                            }
-                        }
-                    }
+            if (row == 0 && col == 4) {
+                if ((this.castlingRights & BitChessBoard.WHITE_KINGSIDE) != 0 && (this.whiteRooks & (1L << 7)) != 0L
+                        && (occupied & WHITE_KINGSIDE_EMPTY) == 0L && (attacked & WHITE_KINGSIDE_EMPTY) == 0L) {
+                    kingmoves |= 1L << 6;
                 }
-                if ((((this.whiteRooks >> (0 * 8 + 0)) & 1L) > 0) && this.castlingRights.contains("Q")) {
-                    if (((this.whitePieces >> (0 * 8 + 3)) & 1L) == 0L && ((this.whitePieces >> (0 * 8 + 2)) & 1L) == 0L && ((this.whitePieces >> (0 * 8 + 1)) & 1L) == 0L) {
-                        if (((this.blackPieces >> (0 * 8 + 3)) & 1L) == 0L && ((this.blackPieces >> (0 * 8 + 2)) & 1L) == 0L && ((this.blackPieces >> (0 * 8 + 1)) & 1L) == 0L) {
-                            if (((coveredByOppKing >> (0 * 8 + 3)) & 1L) == 0L && ((coveredByOppKing >> (0 * 8 + 2)) & 1L) == 0L) {
-                                if (!this.kingInCheckAfterMove(0, 3) && !this.kingInCheckAfterMove(0, 2)) {
-                                    kingmoves |= 1L << (0 * 8 + 2);
-                                }
-                            }
-                        }
-                    }
+                if ((this.castlingRights & BitChessBoard.WHITE_QUEENSIDE) != 0 && (this.whiteRooks & 1L) != 0L
+                        && (occupied & WHITE_QUEENSIDE_EMPTY) == 0L && (attacked & WHITE_QUEENSIDE_SAFE) == 0L) {
+                    kingmoves |= 1L << 2;
                 }
             }
         } else {
-            if (row == 7 && col == 4 && (this.castlingRights.contains("k") || this.castlingRights.contains("q"))) {
-                if ((((this.blackRooks >> (7 * 8 + 7)) & 1L) > 0) && this.castlingRights.contains("k")) {
-                    if (((this.blackPieces >> (7 * 8 + 5)) & 1L) == 0L && ((this.blackPieces >> (7 * 8 + 6)) & 1L) == 0L) {
-                        if (((this.whitePieces >> (7 * 8 + 5)) & 1L) == 0L && ((this.whitePieces >> (7 * 8 + 6)) & 1L) == 0L) {
-                            if (((coveredByOppKing >> (7 * 8 + 5)) & 1L) == 0L && ((coveredByOppKing >> (7 * 8 + 6)) & 1L) == 0L) {
-                                if (!this.kingInCheckAfterMove(7, 5) && !this.kingInCheckAfterMove(7, 6)) {
-                                    kingmoves |= 1L << (7 * 8 + 6);
-                                }
-                            }
-                        }
-                    }
+            if (row == 7 && col == 4) {
+                if ((this.castlingRights & BitChessBoard.BLACK_KINGSIDE) != 0 && (this.blackRooks & (1L << 63)) != 0L
+                        && (occupied & BLACK_KINGSIDE_EMPTY) == 0L && (attacked & BLACK_KINGSIDE_EMPTY) == 0L) {
+                    kingmoves |= 1L << 62;
                 }
-                if ((((this.blackRooks >> (7 * 8 + 0)) & 1L) > 0) && this.castlingRights.contains("q")) {
-                    if (((this.blackPieces >> (7 * 8 + 3)) & 1L) == 0L && ((this.blackPieces >> (7 * 8 + 2)) & 1L) == 0L && ((this.blackPieces >> (7 * 8 + 1)) & 1L) == 0L) {
-                        if (((this.whitePieces >> (7 * 8 + 3)) & 1L) == 0L && ((this.whitePieces >> (7 * 8 + 2)) & 1L) == 0L && ((this.whitePieces >> (7 * 8 + 1)) & 1L) == 0L) {
-                            if (((coveredByOppKing >> (7 * 8 + 3)) & 1L) == 0L && ((coveredByOppKing >> (7 * 8 + 2)) & 1L) == 0L) {
-                                if (!this.kingInCheckAfterMove(7, 3) && !this.kingInCheckAfterMove(7, 2)) {
-                                    kingmoves |= 1L << (7 * 8 + 2);
-                                }
-                            }
-                        }
-                    }
+                if ((this.castlingRights & BitChessBoard.BLACK_QUEENSIDE) != 0 && (this.blackRooks & (1L << 56)) != 0L
+                        && (occupied & BLACK_QUEENSIDE_EMPTY) == 0L && (attacked & BLACK_QUEENSIDE_SAFE) == 0L) {
+                    kingmoves |= 1L << 58;
                 }
-            } 
+            }
         }
 
         return kingmoves;
@@ -585,102 +624,13 @@ public class MoveGenerator {
     }
 
 
-    /**
-     * Helper function for getKingMovesBitBoard()
-     * Checks if the king is in check after moving it to the given square
-     * @param row of the square to move the king to
-     * @param col of the square to move the king to
-     * @return true if the king is in check after the move, false otherwise
-     */
-    private boolean kingInCheckAfterMove(int row, int col) {
-
-        // remove the king from the board and place it in the new square by row and col
-
-        long king = this.sideToMove == Side.WHITE ? this.whiteKing : this.blackKing;
-
-        if (this.sideToMove == Side.WHITE) {
-            this.whitePieces = this.whitePieces & ~king;
-            this.whiteKing = 1L << (row * 8 + col);
-            this.whitePieces |= this.whiteKing;
-        } else {
-            this.blackPieces = this.blackPieces & ~king;
-            this.blackKing = 1L << (row * 8 + col);
-            this.blackPieces |= this.blackKing;
-        }
-
-        // check if the king is in check
-
-        int kingInCheck = this.kingInCheck();
-
-        // put the king back on the board
-
-        if (this.sideToMove == Side.WHITE) {
-            this.whitePieces = this.whitePieces & ~this.whiteKing;
-            this.whiteKing = king;
-            this.whitePieces |= this.whiteKing;
-        } else {
-            this.blackPieces = this.blackPieces & ~this.blackKing;
-            this.blackKing = king;
-            this.blackPieces |= this.blackKing;
-        }
-
-        return kingInCheck > 0;
-
-    }
-
-
-    /**
-     * Helper function for getKingMovesBitBoard()
-     * Finds all squares covered by the opposite king
-     * @return bitboard of covered squares
-     */
-    private long getOppositeKingCoveredSquares() {
-        ArrayList<int[]> oppositeKingCoords = getCoordinatesFromBitboard(this.sideToMove == Side.WHITE ? this.blackKing : this.whiteKing);
-
-        long oppositeKingCoveredSquares = 0L;
-
-        int oppositeKingRow = oppositeKingCoords.get(0)[0];
-        int oppositeKingCol = oppositeKingCoords.get(0)[1];
-
-        if (oppositeKingRow + 1 < 8) {
-            oppositeKingCoveredSquares |= 1L << ((oppositeKingRow + 1) * 8 + oppositeKingCol);
-        }
-        if (oppositeKingRow - 1 >= 0) {
-            oppositeKingCoveredSquares |= 1L << ((oppositeKingRow - 1) * 8 + oppositeKingCol);
-        }
-        if (oppositeKingCol + 1 < 8) {
-            oppositeKingCoveredSquares |= 1L << (oppositeKingRow * 8 + oppositeKingCol + 1);
-        }
-        if (oppositeKingCol - 1 >= 0) {
-            oppositeKingCoveredSquares |= 1L << (oppositeKingRow * 8 + oppositeKingCol - 1);
-        }
-        if (oppositeKingRow + 1 < 8 && oppositeKingCol + 1 < 8) {
-            oppositeKingCoveredSquares |= 1L << ((oppositeKingRow + 1) * 8 + oppositeKingCol + 1);
-        }
-        if (oppositeKingRow + 1 < 8 && oppositeKingCol - 1 >= 0) {
-            oppositeKingCoveredSquares |= 1L << ((oppositeKingRow + 1) * 8 + oppositeKingCol - 1);
-        }
-        if (oppositeKingRow - 1 >= 0 && oppositeKingCol + 1 < 8) {
-            oppositeKingCoveredSquares |= 1L << ((oppositeKingRow - 1) * 8 + oppositeKingCol + 1);
-        }
-        if (oppositeKingRow - 1 >= 0 && oppositeKingCol - 1 >= 0) {
-            oppositeKingCoveredSquares |= 1L << ((oppositeKingRow - 1) * 8 + oppositeKingCol - 1);
-        }
-
-        return oppositeKingCoveredSquares;
-
-    }
-
-
     /**
      * Gets moves for a pawn in the given position.
      * @param row row of the pawn
      * @param col column of the pawn
-     * @param inCheck whether the king is in check
-     * @param pinned whether the pawn is pinned
-     * @return bitboard of legal moves
+     * @return bitboard of moves, not yet filtered by pins and checks
      */
-    private long getPawnMovesBitBoard(int row, int col, boolean inCheck, boolean pinned) {
+    private long getPawnMovesBitBoard(int row, int col) {
         long pawnMoves = 0L;
 
         // go straight
@@ -709,38 +659,17 @@ public class MoveGenerator {
         }
 
         // capture
-        if (this.sideToMove == Side.WHITE) {
-            if (row + 1 < 8 && col - 1 >= 0) {
-                if (((this.blackPieces >> ((row + 1) * 8 + col - 1)) & 1L) > 0) {
-                    pawnMoves |= 1L << ((row + 1) * 8 + col - 1);
-                }
-            }
-            if (row + 1 < 8 && col + 1 < 8) {
-                if (((this.blackPieces >> ((row + 1) * 8 + col + 1)) & 1L) > 0) {
-                    pawnMoves |= 1L << ((row + 1) * 8 + col + 1);
-                }
-            }
-        } else {
-            if (row - 1 >= 0 && col - 1 >= 0) {
-                if (((this.whitePieces >> ((row - 1) * 8 + col - 1)) & 1L) > 0) {
-                    pawnMoves |= 1L << ((row - 1) * 8 + col - 1);
-                }
-            }
-            if (row - 1 >= 0 && col + 1 < 8) {
-                if (((this.whitePieces >> ((row - 1) * 8 + col + 1)) & 1L) > 0) {
-                    pawnMoves |= 1L << ((row - 1) * 8 + col + 1);
-                }
-            }
-        }
+        long enemyPieces = this.sideToMove == Side.WHITE ? this.blackPieces : this.whitePieces;
+        pawnMoves |= AttackTables.getPawnAttacks(row * 8 + col, this.sideToMove == Side.WHITE) & enemyPieces;
 
         // en passant
-        if (!this.enpassantable.equals("-")) {
+        if (this.enpassantable != -1) {
 
             if (this.sideToMove == Side.WHITE) {
                 if (row == 4) {
                     if (col - 1 >= 0) {
                         if (((this.blackPawns >> (row * 8 + col - 1)) & 1L) > 0) {
-                            if (MoveParser.getFromCol(this.enpassantable) == (col - 1) && MoveParser.getFromRow(this.enpassantable) == row) {
+                            if (this.enpassantable == row * 8 + col - 1) {
                                 if (!this.enPassantLeadsToCheck(row, col, -1, 1)) {
                                     pawnMoves |= 1L << ((row + 1) * 8 + col - 1);
                                 }
@@ -749,7 +678,7 @@ public class MoveGenerator {
                     }
                     if (col + 1 < 8) {
                         if (((this.blackPawns >> (row * 8 + col + 1)) & 1L) > 0) {
-                            if (MoveParser.getFromCol(this.enpassantable) == (col + 1) && MoveParser.getFromRow(this.enpassantable) == row) {
+                            if (this.enpassantable == row * 8 + col + 1) {
                                 if (!this.enPassantLeadsToCheck(row, col, 1, 1)) {
                                     pawnMoves |= 1L << ((row + 1) * 8 + col + 1);
                                 }
@@ -761,7 +690,7 @@ public class MoveGenerator {
                 if (row == 3) {
                     if (col - 1 >= 0) {
                         if (((this.whitePawns >> (row * 8 + col - 1)) & 1L) > 0) {
-                            if (MoveParser.getFromCol(this.enpassantable) == (col - 1) && MoveParser.getFromRow(this.enpassantable) == row) {
+                            if (this.enpassantable == row * 8 + col - 1) {
                                 if (!this.enPassantLeadsToCheck(row, col, -1, -1)) {
                                     pawnMoves |= 1L << ((row - 1) * 8 + col - 1);
                                 }
@@ -770,7 +699,7 @@ public class MoveGenerator {
                     }
                     if (col + 1 < 8) {
                         if (((this.whitePawns >> (row * 8 + col + 1)) & 1L) > 0) {
-                            if (MoveParser.getFromCol(this.enpassantable) == (col + 1) && MoveParser.getFromRow(this.enpassantable) == row) {
+                            if (this.enpassantable == row * 8 + col + 1) {
                                 if (!this.enPassantLeadsToCheck(row, col, 1, -1)) {
                                     pawnMoves |= 1L << ((row - 1) * 8 + col + 1);
                                 }
@@ -781,46 +710,7 @@ public class MoveGenerator {
             }
         }
 
-        if (pinned) {
-            for (long[] pinnedPiece : this.pinnedPieces) {
-                if (pinnedPiece[0] == row && pinnedPiece[1] == col) {
-                    pawnMoves &= pinnedPiece[2];
-                    break;
-                }
-            }
-        }
-
-        if (!inCheck) {
-            return pawnMoves;
-        } else {
-            // special check for if an enpassant capture gets rid of check
-            long enpassantGetRidOfCheck = 0L;
-            
-            if (!this.enpassantable.equals("-")) {
-                ArrayList<int[]> attackerCoords = getCoordinatesFromBitboard(this.attackers);
-                int attackerRow = attackerCoords.get(0)[0];
-                int attackerCol = attackerCoords.get(0)[1];
-
-                if (((((whitePawns >> (attackerRow * 8 + attackerCol)) & 1L) > 0) 
-                        || (((blackPawns >> (attackerRow * 8 + attackerCol)) & 1L) > 0))) {
-                    if (MoveParser.getFromRow(this.enpassantable) == attackerRow && MoveParser.getFromCol(this.enpassantable) == attackerCol) {
-                        if (this.sideToMove == Side.WHITE) {
-                            if (((pawnMoves >> ((attackerRow + 1) * 8 + attackerCol)) & 1L) > 0) {
-                                enpassantGetRidOfCheck = 1L << ((attackerRow + 1) * 8 + attackerCol);
-                            }
-                        } else {
-                            if (((pawnMoves >> ((attackerRow - 1) * 8 + attackerCol)) & 1L) > 0) {
-                                enpassantGetRidOfCheck = 1L << ((attackerRow - 1) * 8 + attackerCol);
-                            }
-                        }
-                    }
-                }
-            }
-            
-            pawnMoves &= this.inCheckLegalMoves;
-            pawnMoves |= enpassantGetRidOfCheck;
-            return pawnMoves;
-        }
+        return pawnMoves;
         
     }
 
@@ -897,112 +787,14 @@ public class MoveGenerator {
      * Gets moves for a bishop in the given position.
      * @param row row of the bishop
      * @param col column of the bishop
-     * @param inCheck whether the king is in check
-     * @param pinned whether the bishop is pinned
-     * @return bitboard of legal moves
+     * @return bitboard of moves, not yet filtered by pins and checks
      */
-    private long getBishopMovesBitBoard(int row, int col, boolean inCheck, boolean pinned) {
-        long bishopMoves = 0L;
-
-        // down-left
-        for (int i = row - 1, j = col - 1; i >= 0 && j >= 0; i--, j--) {
-            if (((this.whitePieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else if (((this.blackPieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else {
-                bishopMoves |= 1L << (i * 8 + j);
-            }
-        }
-
-        // down-right
-        for (int i = row - 1, j = col + 1; i >= 0 && j < 8; i--, j++) {
-            if (((this.whitePieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else if (((this.blackPieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else {
-                bishopMoves |= 1L << (i * 8 + j);
-            }
-        }
-
-        // up-left
-        for (int i = row + 1, j = col - 1; i < 8 && j >= 0; i++, j--) {
-            if (((this.whitePieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else if (((this.blackPieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else {
-                bishopMoves |= 1L << (i * 8 + j);
-            }
-        }
-
-        // up-right
-        for (int i = row + 1, j = col + 1; i < 8 && j < 8; i++, j++) {
-            if (((this.whitePieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else if (((this.blackPieces >> (i * 8 + j)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    bishopMoves |= 1L << (i * 8 + j);
-                    break;
-                }
-            } else {
-                bishopMoves |= 1L << (i * 8 + j);
-            }
-        }
+    private long getBishopMovesBitBoard(int row, int col) {
+        long ownPieces = this.sideToMove == Side.WHITE ? this.whitePieces : this.blackPieces;
+        long bishopMoves = MagicBitboards.getBishopAttacks(row * 8 + col, this.whitePieces | this.blackPieces)
+                           & ~ownPieces;
 
-        if (pinned) {
-            for (long[] pinnedPiece : this.pinnedPieces) {
-                if (pinnedPiece[0] == row && pinnedPiece[1] == col) {
-                    bishopMoves &= pinnedPiece[2];
-                    break;
-                }
-            }
-        }
-
-        if (!inCheck) {
-            return bishopMoves;
-        } else {
-            bishopMoves &= this.inCheckLegalMoves;
-            return bishopMoves;
-        }
+        return bishopMoves;
 
     }
 
@@ -1011,112 +803,13 @@ public class MoveGenerator {
      * Gets moves for a rook in the given position.
      * @param row row of the rook
      * @param col column of the rook
-     * @param inCheck whether the king is in check
-     * @param pinned whether the rook is pinned
-     * @return bitboard of legal moves
+     * @return bitboard of moves, not yet filtered by pins and checks
      */
-    private long getRookMovesBitBoard(int row, int col, boolean inCheck, boolean pinned) {
-        long rookMoves = 0L;
-
-        // down
-        for (int i = row - 1; i >= 0; i--) {
-            if (((this.whitePieces >> (i * 8 + col)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (i * 8 + col);
-                    break;
-                }
-            } else if (((this.blackPieces >> (i * 8 + col)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (i * 8 + col);
-                    break;
-                }
-            } else {
-                rookMoves |= 1L << (i * 8 + col);
-            }
-        }
+    private long getRookMovesBitBoard(int row, int col) {
+        long ownPieces = this.sideToMove == Side.WHITE ? this.whitePieces : this.blackPieces;
+        long rookMoves = MagicBitboards.getRookAttacks(row * 8 + col, this.whitePieces | this.blackPieces) & ~ownPieces;
 
-        // up
-        for (int i = row + 1; i < 8; i++) {
-            if (((this.whitePieces >> (i * 8 + col)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (i * 8 + col);
-                    break;
-                }
-            } else if (((this.blackPieces >> (i * 8 + col)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (i * 8 + col);
-                    break;
-                }
-            } else {
-                rookMoves |= 1L << (i * 8 + col);
-            }
-        }
-
-        // left
-        for (int i = col - 1; i >= 0; i--) {
-            if (((this.whitePieces >> (row * 8 + i)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (row * 8 + i);
-                    break;
-                }
-            } else if (((this.blackPieces >> (row * 8 + i)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (row * 8 + i);
-                    break;
-                }
-            } else {
-                rookMoves |= 1L << (row * 8 + i);
-            }
-        }
-
-        // right
-        for (int i = col + 1; i < 8; i++) {
-            if (((this.whitePieces >> (row * 8 + i)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (row * 8 + i);
-                    break;
-                }
-            } else if (((this.blackPieces >> (row * 8 + i)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    break;
-                } else {
-                    rookMoves |= 1L << (row * 8 + i);
-                    break;
-                }
-            } else {
-                rookMoves |= 1L << (row * 8 + i);
-            }
-        }
-
-        if (pinned) {
-            for (long[] pinnedPiece : this.pinnedPieces) {
-                if (pinnedPiece[0] == row && pinnedPiece[1] == col) {
-                    rookMoves &= pinnedPiece[2];
-                    break;
-                }
-            }
-        }
-
-        if (!inCheck) {
-            return rookMoves;
-        } else {
-            rookMoves &= this.inCheckLegalMoves;
-            return rookMoves;
-        }
+        return rookMoves;
 
     }
 
@@ -1126,12 +819,10 @@ public class MoveGenerator {
      * Easily done by combining the moves of a rook and a bishop.
      * @param row row of the queen
      * @param col column of the queen
-     * @param inCheck whether the king is in check
-     * @param pinned whether the queen is pinned
-     * @return bitboard of legal moves
+     * @return bitboard of moves, not yet filtered by pins and checks
      */
-    private long getQueenMovesBitBoard(int row, int col, boolean inCheck, boolean pinned) {
-        return this.getRookMovesBitBoard(row, col, inCheck, pinned) | this.getBishopMovesBitBoard(row, col, inCheck, pinned);
+    private long getQueenMovesBitBoard(int row, int col) {
+        return this.getRookMovesBitBoard(row, col) | this.getBishopMovesBitBoard(row, col);
     }
 
 
@@ -1139,159 +830,14 @@ public class MoveGenerator {
      * Gets moves for a knight in the given position.
      * @param row row of the knight
      * @param col column of the knight
-     * @param inCheck whether the king is in check
-     * @param pinned whether the knight is pinned
-     * @return bitboard of legal moves
+     * @return bitboard of moves, not yet filtered by pins and checks
      */
-    private long getKnightMovesBitBoard(int row, int col, boolean inCheck, boolean pinned) {
-        long knightMoves = 0L;
-
-        if (row - 2 >= 0 && col - 1 >= 0) {
-            if (((this.whitePieces >> ((row - 2) * 8 + col - 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row - 2) * 8 + col - 1);
-                }
-            } else if (((this.blackPieces >> ((row - 2) * 8 + col - 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row - 2) * 8 + col - 1);
-                }
-            } else {
-                knightMoves |= 1L << ((row - 2) * 8 + col - 1);
-            }
-        }
-
-        if (row - 2 >= 0 && col + 1 < 8) {
-            if (((this.whitePieces >> ((row - 2) * 8 + col + 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row - 2) * 8 + col + 1);
-                }
-            } else if (((this.blackPieces >> ((row - 2) * 8 + col + 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row - 2) * 8 + col + 1);
-                }
-            } else {
-                knightMoves |= 1L << ((row - 2) * 8 + col + 1);
-            }
-        }
+    private long getKnightMovesBitBoard(int row, int col) {
+        long ownPieces = this.sideToMove == Side.WHITE ? this.whitePieces : this.blackPieces;
+        long knightMoves = AttackTables.getKnightAttacks(row * 8 + col) & ~ownPieces;
 
-        if (row - 1 >= 0 && col - 2 >= 0) {
-            if (((this.whitePieces >> ((row - 1) * 8 + col - 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row - 1) * 8 + col - 2);
-                }
-            } else if (((this.blackPieces >> ((row - 1) * 8 + col - 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row - 1) * 8 + col - 2);
-                }
-            } else {
-                knightMoves |= 1L << ((row - 1) * 8 + col - 2);
-            }
-        }
-
-        if (row - 1 >= 0 && col + 2 < 8) {
-            if (((this.whitePieces >> ((row - 1) * 8 + col + 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row - 1) * 8 + col + 2);
-                }
-            } else if (((this.blackPieces >> ((row - 1) * 8 + col + 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row - 1) * 8 + col + 2);
-                }
-            } else {
-                knightMoves |= 1L << ((row - 1) * 8 + col + 2);
-            }
-        }
-
-        if (row + 1 < 8 && col - 2 >= 0) {
-            if (((this.whitePieces >> ((row + 1) * 8 + col - 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row + 1) * 8 + col - 2);
-                }
-            } else if (((this.blackPieces >> ((row + 1) * 8 + col - 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row + 1) * 8 + col - 2);
-                }
-            } else {
-                knightMoves |= 1L << ((row + 1) * 8 + col - 2);
-            }
-        }
-
-        if (row + 1 < 8 && col + 2 < 8) {
-            if (((this.whitePieces >> ((row + 1) * 8 + col + 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row + 1) * 8 + col + 2);
-                }
-            } else if (((this.blackPieces >> ((row + 1) * 8 + col + 2)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row + 1) * 8 + col + 2);
-                }
-            } else {
-                knightMoves |= 1L << ((row + 1) * 8 + col + 2);
-            }
-        }
-
-        if (row + 2 < 8 && col - 1 >= 0) {
-            if (((this.whitePieces >> ((row + 2) * 8 + col - 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row + 2) * 8 + col - 1);
-                }
-            } else if (((this.blackPieces >> ((row + 2) * 8 + col - 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row + 2) * 8 + col - 1);
-                }
-            } else {
-                knightMoves |= 1L << ((row + 2) * 8 + col - 1);
-            }
-        }
-
-        if (row + 2 < 8 && col + 1 < 8) {
-            if (((this.whitePieces >> ((row + 2) * 8 + col + 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.BLACK) {
-                    knightMoves |= 1L << ((row + 2) * 8 + col + 1);
-                }
-            } else if (((this.blackPieces >> ((row + 2) * 8 + col + 1)) & 1L) > 0) {
-                if (this.sideToMove == Side.WHITE) {
-                    knightMoves |= 1L << ((row + 2) * 8 + col + 1);
-                }
-            } else {
-                knightMoves |= 1L << ((row + 2) * 8 + col + 1);
-            }
-        }
-
-        if (pinned) {
-            for (long[] pinnedPiece : this.pinnedPieces) {
-                if (pinnedPiece[0] == row && pinnedPiece[1] == col) {
-                    knightMoves &= pinnedPiece[2];
-                    break;
-                }
-            }
-        }
-
-        if (!inCheck) {
-            return knightMoves;
-        } else {
-            knightMoves &= this.inCheckLegalMoves;
-            return knightMoves;
-        }
-        
-    }
-
-
-    /**
-     * Gets the coordinates of bits set to 1 in a bitboard.
-     * @param bitboard bitboard to get coordinates from
-     * @return ArrayList of coordinates
-     */
-    public static ArrayList<int[]> getCoordinatesFromBitboard(long bitboard) {
-        ArrayList<int[]> bitboardCoordinates = new ArrayList<>();
-
-        while (bitboard != 0L) {
-            int index = Long.numberOfTrailingZeros(bitboard);
-            bitboardCoordinates.add(new int[]{index / 8, index % 8});
-            bitboard &= ~(1L << index);
-        }
+        return knightMoves;
         
-        return bitboardCoordinates;
     }
 
 
@@ -1,7 +1,5 @@
 package datastructureproject;
 
-import java.util.ArrayList;
-
 /**
  * Move class contains methods for parsing moves from and to UCI format.
  */
@@ -82,33 +80,158 @@ public class MoveParser {
 
 
     /**
-     * Converts given starting coordinates and list of destination coordinates to a list of move strings.
-     * @param fromRow starting row
-     * @param fromCol starting column
-     * @param destinations list of destination coordinates
-     * @return list of move strings
+     * Packs a UCI move string into 16 bits for storing in the transposition table.
+     * Bits 0-5 hold the from square, bits 6-11 the to square and bits 12-14 the promotion piece.
+     * @param move move in UCI format, or null
+     * @return compact move, 0 only if the move is null
      */
-    public static ArrayList<String> coordsToMoves(int fromRow, int fromCol, 
-                                                  ArrayList<int[]> destinations, boolean isPromotion) {
-        ArrayList<String> moves = new ArrayList<>();
-        if (!isPromotion) {
-            for (int[] destination : destinations) {
-                moves.add(numberToLetter(fromCol) + (fromRow + 1) 
-                          + numberToLetter(destination[1]) + (destination[0] + 1));
-            }
-        } else {
-            for (int[] destination : destinations) {
-                moves.add(numberToLetter(fromCol) + (fromRow + 1) 
-                                         + numberToLetter(destination[1]) + (destination[0] + 1) + "q");
-                moves.add(numberToLetter(fromCol) + (fromRow + 1) 
-                                         + numberToLetter(destination[1]) + (destination[0] + 1) + "r");
-                moves.add(numberToLetter(fromCol) + (fromRow + 1) 
-                                         + numberToLetter(destination[1]) + (destination[0] + 1) + "b");
-                moves.add(numberToLetter(fromCol) + (fromRow + 1) 
-                                         + numberToLetter(destination[1]) + (destination[0] + 1) + "n");
+    public static int moveToInt(String move) {
+        if (move == null) {
+            return 0;
+        }
+        int from = getFromRow(move) * 8 + getFromCol(move);
+        int to = getToRow(move) * 8 + getToCol(move);
+        int promotion = 0;
+        if (isPromotion(move)) {
+            switch (move.charAt(4)) {
+                case 'q':
+                    promotion = 1;
+                    break;
+                case 'r':
+                    promotion = 2;
+                    break;
+                case 'b':
+                    promotion = 3;
+                    break;
+                default:
+                    promotion = 4;
+                    break;
             }
         }
-        return moves;
+        return from | (to << 6) | (promotion << 12);
+    }
+
+
+    /**
+     * Converts a compact move made by moveToInt(), or an encoded move, back to a UCI move string.
+     * @param move compact or encoded move
+     * @return move in UCI format
+     */
+    public static String intToMove(int move) {
+        int from = move & 0x3F;
+        int to = (move >>> 6) & 0x3F;
+        String uci = numberToLetter(from % 8) + (from / 8 + 1) + numberToLetter(to % 8) + (to / 8 + 1);
+        switch ((move >>> 12) & 0x7) {
+            case 1:
+                return uci + "q";
+            case 2:
+                return uci + "r";
+            case 3:
+                return uci + "b";
+            case 4:
+                return uci + "n";
+            default:
+                return uci;
+        }
+    }
+
+
+    // Moves are passed around the engine as ints:
+    // [0-5] from square, [6-11] to square, [12-14] promotion as in moveToInt(),
+    // [16-19] moving piece, [20-23] captured piece, [24-26] flags.
+    // Squares are indexed row * 8 + col and pieces in the order of BitChessBoard.getBoard().
+    // The lowest 16 bits are the compact move stored in the transposition table.
+
+    public static final int NO_PIECE = 12;
+
+    public static final int CASTLING = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int DOUBLE_PAWN_PUSH = 4;
+
+    private static final int PIECE_SHIFT = 16;
+    private static final int CAPTURED_SHIFT = 20;
+    private static final int FLAGS_SHIFT = 24;
+
+
+    /**
+     * Packs a move into an int.
+     * @param from index of the from square
+     * @param to index of the to square
+     * @param piece type of the moving piece
+     * @param captured type of the captured piece, or NO_PIECE
+     * @param promotion promotion piece as in moveToInt(), 0 if none
+     * @param flags CASTLING, EN_PASSANT or DOUBLE_PAWN_PUSH, 0 if none
+     * @return encoded move
+     */
+    public static int encodeMove(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | (to << 6) | (promotion << 12) | (piece << PIECE_SHIFT) 
+               | (captured << CAPTURED_SHIFT) | (flags << FLAGS_SHIFT);
+    }
+
+
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+
+    public static int getTo(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+
+    public static int getPromotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+
+    public static int getPiece(int move) {
+        return (move >>> PIECE_SHIFT) & 0xF;
+    }
+
+
+    public static int getCaptured(int move) {
+        return (move >>> CAPTURED_SHIFT) & 0xF;
+    }
+
+
+    public static int getFlags(int move) {
+        return (move >>> FLAGS_SHIFT) & 0x7;
+    }
+
+
+    public static int getCompact(int move) {
+        return move & 0xFFFF;
+    }
+
+
+    /**
+     * Converts a UCI move string to an encoded move, looking up the moving and captured pieces from the board.
+     * Assumes that the move is legal in the position.
+     * @param move move in UCI format
+     * @param board board the move is made on
+     * @return encoded move
+     */
+    public static int uciToMove(String move, BitChessBoard board) {
+        int compact = moveToInt(move);
+        int from = compact & 0x3F;
+        int to = (compact >>> 6) & 0x3F;
+        int piece = board.getPieceTypeAtIndex(from);
+        int captured = board.getPieceTypeAtIndex(to);
+        if (captured == -1) {
+            captured = NO_PIECE;
+        }
+
+        int flags = 0;
+        if ((piece == 5 || piece == 11) && Math.abs(to - from) == 2) {
+            flags = CASTLING;
+        } else if ((piece == 0 || piece == 6) && Math.abs(to - from) == 16) {
+            flags = DOUBLE_PAWN_PUSH;
+        } else if ((piece == 0 || piece == 6) && (to - from) % 8 != 0 && captured == NO_PIECE) {
+            flags = EN_PASSANT;
+            captured = piece == 0 ? 6 : 0;
+        }
+
+        return encodeMove(from, to, piece, captured, (compact >>> 12) & 0x7, flags);
     }
 
 }
@@ -0,0 +1,197 @@
+package datastructureproject;
+
+/**
+ * Gives the moves of a position to the search one at a time in stages, best looking moves first:
+ * the hash move, captures and promotions by MVV-LVA, killer moves, and finally quiet moves by their history score.
+ * Moves of a stage are generated only when the stage is reached, so when one of the first moves causes a cutoff
+ * the rest of the moves are never generated (https://www.chessprogramming.org/Move_Ordering).
+ *
+ * <p>Each ply of the search has its own picker and move generator, which are reused for every node at that ply.</p>
+ */
+public class MovePicker {
+
+    // rough piece values for ordering captures: pawn, knight, bishop, rook, queen, king
+    private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 0};
+
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int DONE = 6;
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+
+    private MoveGenerator generator;
+    private int[][] history;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int firstKillerMove; // killers that were legal and returned, skipped when the quiet moves come
+    private int secondKillerMove;
+
+    private int stage;
+    private int index;
+    private int count;
+
+
+    /**
+     * Starts picking moves for a new position.
+     * @param generator move generator that has been reset to the position
+     * @param hashMove best move from the transposition table in compact format, 0 if there is none
+     * @param firstKiller first killer move of the ply in compact format, 0 if there is none
+     * @param secondKiller second killer move of the ply in compact format, 0 if there is none
+     * @param history history scores of quiet moves by from and to square, null to keep quiet moves in generation order
+     */
+    public void init(MoveGenerator generator, int hashMove, int firstKiller, int secondKiller, int[][] history) {
+        this.generator = generator;
+        this.hashMove = generator.getLegalMove(hashMove);
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.history = history;
+        this.firstKillerMove = 0;
+        this.secondKillerMove = 0;
+        this.stage = HASH_MOVE;
+    }
+
+
+    /**
+     * Gets the next move to search.
+     * @return next legal move, encoded as in MoveParser.encodeMove(), or 0 when all moves have been given
+     */
+    public int next() {
+        while (true) {
+            switch (this.stage) {
+                case HASH_MOVE:
+                    this.stage = GENERATE_CAPTURES;
+                    if (this.hashMove != 0) {
+                        return this.hashMove;
+                    }
+                    break;
+                case GENERATE_CAPTURES:
+                    this.count = this.generator.getCaptures(this.moves);
+                    for (int i = 0; i < this.count; i++) {
+                        this.scores[i] = captureOrderKey(this.moves[i]);
+                    }
+                    this.index = 0;
+                    this.stage = CAPTURES;
+                    break;
+                case CAPTURES:
+                    while (this.index < this.count) {
+                        int move = this.pickBest();
+                        if (move != this.hashMove) {
+                            return move;
+                        }
+                    }
+                    this.stage = KILLERS;
+                    break;
+                case KILLERS:
+                    if (this.firstKillerMove == 0 && this.firstKiller != 0) {
+                        this.firstKillerMove = this.legalQuietMove(this.firstKiller);
+                        this.firstKiller = 0;
+                        if (this.firstKillerMove != 0) {
+                            return this.firstKillerMove;
+                        }
+                    }
+                    if (this.secondKillerMove == 0 && this.secondKiller != 0) {
+                        this.secondKillerMove = this.legalQuietMove(this.secondKiller);
+                        this.secondKiller = 0;
+                        if (this.secondKillerMove != 0) {
+                            return this.secondKillerMove;
+                        }
+                    }
+                    this.stage = GENERATE_QUIETS;
+                    break;
+                case GENERATE_QUIETS:
+                    this.count = this.generator.getQuiets(this.moves);
+                    for (int i = 0; i < this.count; i++) {
+                        int move = this.moves[i];
+                        this.scores[i] = this.history == null ? 0
+                            : this.history[MoveParser.getFrom(move)][MoveParser.getTo(move)];
+                    }
+                    this.index = 0;
+                    this.stage = QUIETS;
+                    break;
+                case QUIETS:
+                    while (this.index < this.count) {
+                        int move = this.pickBest();
+                        if (move != this.hashMove && move != this.firstKillerMove && move != this.secondKillerMove) {
+                            return move;
+                        }
+                    }
+                    this.stage = DONE;
+                    break;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+
+    /**
+     * Checks if the move last given by next() came from the quiet move stage, and so is neither the hash move,
+     * a capture, a promotion nor a killer move. All the moves still to come are quiet moves as well.
+     * @return true if the last move was a quiet move ordered by history
+     */
+    public boolean isQuietStage() {
+        return this.stage == QUIETS;
+    }
+
+
+    /**
+     * Checks if a move is a capture or a promotion, the kind of moves given before the killer moves.
+     * @param move encoded move
+     * @return true if the move is not a capture or a promotion
+     */
+    public static boolean isQuiet(int move) {
+        return MoveParser.getCaptured(move) == MoveParser.NO_PIECE && MoveParser.getPromotion(move) == 0;
+    }
+
+
+    /**
+     * Key for ordering captures so that the most valuable victims are captured first, and with the least valuable
+     * attacker when there are several (MVV-LVA). Promotions are ordered as if they captured the promoted piece.
+     * @param move encoded move
+     * @return key, higher is searched first
+     */
+    public static int captureOrderKey(int move) {
+        int captured = MoveParser.getCaptured(move);
+        int victim = captured == MoveParser.NO_PIECE ? 0 : PIECE_VALUES[captured % 6];
+        if (MoveParser.getPromotion(move) == 1) {
+            victim += PIECE_VALUES[4];
+        }
+        return victim * 8 - PIECE_VALUES[MoveParser.getPiece(move) % 6];
+    }
+
+
+    /**
+     * Selection sort step: swaps the best scored remaining move to the current index and returns it.
+     * Only as much of the list is sorted as is searched before a cutoff.
+     */
+    private int pickBest() {
+        int best = this.index;
+        for (int i = this.index + 1; i < this.count; i++) {
+            if (this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+        int move = this.moves[best];
+        this.moves[best] = this.moves[this.index];
+        this.scores[best] = this.scores[this.index];
+        this.moves[this.index] = move;
+        this.index++;
+        return move;
+    }
+
+
+    private int legalQuietMove(int compactMove) {
+        int move = this.generator.getLegalMove(compactMove);
+        if (move == 0 || move == this.hashMove || move == this.firstKillerMove || !isQuiet(move)) {
+            return 0;
+        }
+        return move;
+    }
+
+}
@@ -3,7 +3,6 @@ package datastructureproject;
 import chess.bot.ChessBot;
 import chess.engine.GameState;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import chess.model.Side;
@@ -17,14 +16,33 @@ public class PerformanceTest {
     private ChessBot bot;
     private List<GameState> gsList = new ArrayList();
 
-    private HashMap<Long, String[]> tranpositionTable = new HashMap<>();
+    private TranspositionTable transpositionTable; // created by the first nextMove(), perft does not need it
+    private long nodes = 0;
+    private double firstMoveCutoffRate = 0;
+
+    private boolean verifyIncremental = false;
     private Hasher hasher = new Hasher();
 
+    // perft reuses one generator and a move list for each depth like the search does
+    private MoveGenerator moveGenerator = new MoveGenerator();
+    private int[][] moveBuffers = new int[0][];
+
     public void setGsList(List<GameState> gsList) {
         this.gsList = gsList;
     }
 
 
+    /**
+     * Sets whether perft compares the hash and evaluation kept up to date by the board
+     * to a full recompute in every position.
+     * Useful for debugging makeMove(), but makes perft a lot slower.
+     * @param verifyIncremental true to verify the incrementally updated state
+     */
+    public void setVerifyIncremental(boolean verifyIncremental) {
+        this.verifyIncremental = verifyIncremental;
+    }
+
+
     public static void main(String[] args) {
         
         PerformanceTest pt = new PerformanceTest();
@@ -35,14 +53,11 @@ public class PerformanceTest {
 
         //pt.getEvaluation("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11");
 
-        
-        long startTime = System.nanoTime();
-        String move = pt.nextMove("2rk2r1/pp1nRpBp/8/8/6N1/3P4/PP3PPP/R5K1 b - - 0 23", 7);
-        long endTime = System.nanoTime();
-        long duration = (endTime - startTime) / 1000000;
-        System.out.println("Time taken: " + duration + "ms");
-        System.out.println("Move: " + move);
-        
+        pt.searchBenchmark("2rk2r1/pp1nRpBp/8/8/6N1/3P4/PP3PPP/R5K1 b - - 0 23", 6, 8);
+
+        //pt.timeToDepthBenchmark("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11", 
+        //                        7, new int[]{1, 2, 4, 8, 16});
+
 
     }
 
@@ -62,6 +77,7 @@ public class PerformanceTest {
             Side side = fen.split(" ")[1].equals("w") ? Side.WHITE : Side.BLACK;
 
             PerformanceTest pt = new PerformanceTest();
+            pt.setVerifyIncremental(this.verifyIncremental);
 
             long startTime = System.nanoTime();
             long nodes = pt.getNodesGenerated(depth, board, side);
@@ -79,18 +95,18 @@ public class PerformanceTest {
             Side opSide = side == Side.WHITE ? Side.BLACK : Side.WHITE;
 
             PerformanceTest pt = new PerformanceTest();
+            pt.setVerifyIncremental(this.verifyIncremental);
 
             MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, side);
-            ArrayList<String> moves = mg.getMoves();
-
-            for (String move : moves) {
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                long nodes = pt.getNodesGenerated(depth - 1, newBoard, opSide);
-                //board.undoMove();
-                System.out.println(move + ": " + nodes);
+            int[] moves = mg.getMoves();
+
+            for (int move : moves) {
+                board.makeMove(move);
+                long nodes = pt.getNodesGenerated(depth - 1, board, opSide);
+                board.unmakeMove(move);
+                System.out.println(MoveParser.intToMove(move) + ": " + nodes);
             }
-            System.out.println("Total: " + moves.size());
+            System.out.println("Total: " + moves.length);
         }
 
     }
@@ -98,19 +114,33 @@ public class PerformanceTest {
 
     public long getNodesGenerated(int depth, BitChessBoard board, Side side) {
         // recursive method to generate all moves to a certain depth
+        if (this.verifyIncremental) {
+            if (board.getHash() != this.hasher.getHash(board, side)) {
+                throw new IllegalStateException("Incremental hash differs from full recompute, depth left " + depth);
+            }
+            if (PositionEvaluator.evaluatePosition(board, Side.WHITE) 
+                    != PositionEvaluator.evaluatePositionFromScratch(board, Side.WHITE)) {
+                throw new IllegalStateException("Incremental evaluation differs from full recompute, depth left " 
+                                                + depth);
+            }
+        }
         if (depth == 0) {
             return 1;
         }
 
-        MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, side);
+        if (depth >= this.moveBuffers.length) {
+            this.moveBuffers = new int[depth + 1][MoveGenerator.MAX_MOVES];
+        }
+        this.moveGenerator.reset(board, side);
         Side opposite = side == Side.WHITE ? Side.BLACK : Side.WHITE;
-        ArrayList<String> moves = mg.getMoves();
+        int[] moves = this.moveBuffers[depth];
+        int count = this.moveGenerator.getMoves(moves);
         long nodes = 0;
-        for (String move : moves) {
-            BitChessBoard newBoard = new BitChessBoard(board);
-            newBoard.makeMove(move);
-            nodes += getNodesGenerated(depth - 1, newBoard, opposite);
-            //board.undoMove();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            nodes += getNodesGenerated(depth - 1, board, opposite);
+            board.unmakeMove(move);
         }
 
         return nodes;
@@ -118,193 +148,92 @@ public class PerformanceTest {
     }
 
 
-    // gets the evaluation of a position
-    public void getEvaluation(String fen) { 
-        BitChessBoard board = new BitChessBoard();
-        board.fenToBoard(fen);
-        Side side = fen.split(" ")[1].equals("w") ? Side.WHITE : Side.BLACK;
-        int score = PositionEvaluator.evaluatePosition(board.getBoard(), side);
-        System.out.println("Evaluation: " + score);
-    }
+    /**
+     * Benchmarks the search by running it on a position to each depth in the given range,
+     * printing the time taken, number of nodes searched, the node rate and the share of cutoffs
+     * caused by the first move of a node for each depth.
+     * @param fen FEN string of the position
+     * @param minDepth first depth to search to
+     * @param maxDepth last depth to search to
+     */
+    public void searchBenchmark(String fen, int minDepth, int maxDepth) {
+        for (int depth = minDepth; depth <= maxDepth; depth++) {
+            PerformanceTest pt = new PerformanceTest();
+            pt.setVerifyIncremental(this.verifyIncremental);
 
+            long startTime = System.nanoTime();
+            String move = pt.nextMove(fen, depth);
+            long endTime = System.nanoTime();
+            long duration = Math.max(1, (endTime - startTime) / 1000000);
 
+            System.out.println("Depth " + depth + ": move " + move + ", " + pt.nodes + " nodes in " 
+                               + duration + "ms, " + (pt.nodes * 1000 / duration) + " nodes/s, first move cutoffs " 
+                               + String.format("%.1f", pt.firstMoveCutoffRate * 100) + "%");
+        }
+    }
 
-    // Following methods copied (only slightly modified) from PiketulusBot.java for testing purposes
-    
-    public String nextMove(String fen, int depth) {
 
+    /**
+     * Benchmarks the multi-threaded search by timing how long the bot takes to search a position 
+     * to a fixed depth with each of the given numbers of threads.
+     * Prints the time taken, total nodes searched by all threads and the speedup over the first thread count.
+     * @param fen FEN string of the position
+     * @param depth depth to search to
+     * @param threadCounts numbers of threads to benchmark
+     */
+    public void timeToDepthBenchmark(String fen, int depth, int[] threadCounts) {
         BitChessBoard board = new BitChessBoard();
         board.fenToBoard(fen);
-        Side playing = fen.split(" ")[1].equals("w") ? Side.WHITE : Side.BLACK;
-        
-        String bestMove = iterDeepNextMove(depth, board, playing, playing);
-
-        return bestMove;
-
-    }
-
+        Side side = fen.split(" ")[1].equals("w") ? Side.WHITE : Side.BLACK;
 
-    private String iterDeepNextMove(int maxDepth, BitChessBoard board, Side turn, Side playing) {
-        String bestFoundMove = null;
-        MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, turn);
-        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
-        ArrayList<String> moves = mg.getMoves();
-        if (moves.size() == 0) {
-            return null;
-        }
+        long baseDuration = 0;
+        for (int threads : threadCounts) {
+            PiketulusBot bot = new PiketulusBot(threads);
 
-        this.tranpositionTable.clear();
-
-        long startTime = System.currentTimeMillis();
-        for (int d = 2; d <= maxDepth; d++) {
-            String bestMove = null;
-            int bestScore = Integer.MIN_VALUE;
-            for (String move : moves) {
-                if (System.currentTimeMillis() - startTime > 20000) {
-                    return bestFoundMove;
-                }
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                int score = alphaBetaMinimax(d - 1, newBoard, Integer.MIN_VALUE, 
-                                             Integer.MAX_VALUE, opposite, playing);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
+            long startTime = System.nanoTime();
+            String move = MoveParser.intToMove(bot.search(new BitChessBoard(board), side, depth, Long.MAX_VALUE));
+            long endTime = System.nanoTime();
+            long duration = Math.max(1, (endTime - startTime) / 1000000);
+            if (baseDuration == 0) {
+                baseDuration = duration;
             }
-            bestFoundMove = bestMove;
+
+            System.out.println(threads + " threads: move " + move + ", " + bot.getNodes() + " nodes in " 
+                               + duration + "ms, speedup " + String.format("%.2f", (double) baseDuration / duration));
         }
-        return bestFoundMove;
     }
 
 
-    private int alphaBetaMinimax(int d, BitChessBoard board, int alpha, int beta, Side turn, Side playing) {
-        
-        String exact = "t";
-
-        if (d == 0) {
-            return PositionEvaluator.evaluatePosition(board.getBoard(), playing);
-        }
+    // gets the evaluation of a position
+    public void getEvaluation(String fen) { 
+        BitChessBoard board = new BitChessBoard();
+        board.fenToBoard(fen);
+        Side side = fen.split(" ")[1].equals("w") ? Side.WHITE : Side.BLACK;
+        int score = PositionEvaluator.evaluatePosition(board, side);
+        System.out.println("Evaluation: " + score);
+    }
 
-        long hash = this.hasher.getHash(board, turn);
-
-        String lastFoundBestMove = null;
-
-        if (this.tranpositionTable.containsKey(hash)) {
-            String[] entry = this.tranpositionTable.get(hash);
-            if (Integer.parseInt(entry[2]) >= d) {
-                if (entry[3].equals("t")) {
-                    return Integer.parseInt(entry[1]);
-                } else if (entry[3].equals("f") && turn == playing) {
-                    alpha = Math.max(alpha, Integer.parseInt(entry[1]));
-                } else {
-                    beta = Math.min(beta, Integer.parseInt(entry[1]));
-                }
-
-                if (beta <= alpha) {
-                    return Integer.parseInt(entry[1]);
-                }
-                
-            } else {
-                lastFoundBestMove = entry[0];
-            }
-        }
 
-        MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, turn);
-        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
-        ArrayList<String> moves = mg.getMoves();
-
-        if (moves.size() == 0) {
-            if (mg.kingInCheck > 0 && turn == playing) {
-                return Integer.MIN_VALUE + (8 - d);
-            } else if (mg.kingInCheck > 0 && turn != playing) {
-                return Integer.MAX_VALUE - (8 - d);
-            } else {
-                return 0;
-            }
-        }
 
-        if (turn == playing) {
-            int bestScore = Integer.MIN_VALUE;
-            String bestMove = null;
-
-            if (lastFoundBestMove != null) {
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(lastFoundBestMove);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = lastFoundBestMove;
-                }
-                alpha = Math.max(alpha, score);
-                if (beta <= alpha) {
-                    this.tranpositionTable.put(hash, 
-                            new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), "f"});
-                    return bestScore;
-                }
-            }
+    // Runs the search of the bot on the given position to the given depth, with a 20 second cap
+    
+    public String nextMove(String fen, int depth) {
 
-            for (String move : moves) {
-                if (move.equals(lastFoundBestMove)) {
-                    continue;
-                }
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
-                alpha = Math.max(alpha, score);
-                if (beta <= alpha) {
-                    exact = "f";
-                    break;
-                }
-            }
-            this.tranpositionTable.put(hash, 
-                    new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), exact});
-            return bestScore;
+        BitChessBoard board = new BitChessBoard();
+        board.fenToBoard(fen);
+        Side playing = fen.split(" ")[1].equals("w") ? Side.WHITE : Side.BLACK;
+        
+        if (this.transpositionTable == null) {
+            this.transpositionTable = new TranspositionTable(64);
         } else {
-            int bestScore = Integer.MAX_VALUE;
-            String bestMove = null;
-
-            if (lastFoundBestMove != null) {
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(lastFoundBestMove);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestMove = lastFoundBestMove;
-                }
-                beta = Math.min(beta, score);
-                if (beta <= alpha) {
-                    this.tranpositionTable.put(hash, 
-                            new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), "f"});
-                    return bestScore;
-                }
-            }
-
-            for (String move : moves) {
-                if (move.equals(lastFoundBestMove)) {
-                    continue;
-                }
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
-                beta = Math.min(beta, score);
-                if (beta <= alpha) {
-                    exact = "f";
-                    break;
-                }
-            }
-            this.tranpositionTable.put(hash, 
-                    new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), exact});
-            return bestScore;
+            this.transpositionTable.clear();
         }
-    }    
+        Searcher searcher = new Searcher(this.transpositionTable, 0);
+        int bestMove = searcher.iterDeepNextMove(board, playing, depth, 20000);
+        this.nodes = searcher.getNodes();
+        this.firstMoveCutoffRate = searcher.getFirstMoveCutoffRate();
 
+        return bestMove == 0 ? null : MoveParser.intToMove(bestMove);
+
+    }
 }
@@ -1,8 +1,5 @@
 package datastructureproject;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import chess.bot.ChessBot;
 import chess.engine.GameState;
 import chess.model.Side;
@@ -10,24 +7,64 @@ import chess.model.Side;
 public class PiketulusBot implements ChessBot {
 
     private BitChessBoard board;
-    private int maxDepth = 10; // max depth for calculating a move
-    private int maxTime = 5000; // max time for calculating a move in milliseconds
     private boolean start = true;
 
-    private HashMap<Long, String[]> tranpositionTable = new HashMap<>();
-    private Hasher hasher = new Hasher();
+    private TimeManager timeManager;
+    private TranspositionTable transpositionTable = new TranspositionTable(64);
+    private Searcher[] searchers; // [0] is the main search thread, the rest are helper threads
+
+    private boolean pondering = false; // whether to search on the opponent's time
+    private long defaultPonderTime = 60000; // longest ponder search when the opponent's clock is unknown
+    private Thread ponderThread; // null when not pondering
+    private int ponderMove; // predicted reply of the opponent
+    private volatile int ponderResult; // best move found while pondering
+    private volatile boolean ponderFinished; // whether the ponder search finished before being stopped
+    private long ponderStartTime;
+    private long ponderTime;
+    private boolean ponderHit; // whether the latest move was pondered on
 
 
     public PiketulusBot() {
+        this(1);
+    }
+
+
+    /**
+     * Creates a bot that searches with the given number of threads.
+     * @param threads number of search threads, at least 1
+     */
+    public PiketulusBot(int threads) {
+        this(threads, new TimeManager());
+    }
+
+
+    /**
+     * Creates a bot that searches with the given number of threads and time management settings.
+     * @param threads number of search threads, at least 1
+     * @param timeManager time manager used for deciding the time spent on each move
+     */
+    public PiketulusBot(int threads, TimeManager timeManager) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
         this.board = new BitChessBoard();
+        this.timeManager = timeManager;
+        this.searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) {
+            this.searchers[i] = new Searcher(this.transpositionTable, i);
+        }
     }
     
     /**
      * Returns the next move for the bot given the current game state.
+     * If pondering is on and the opponent played the predicted move, the search continues
+     * from the transposition table filled while pondering, with the pondering time taken off the budget.
      * @param gs current game state
      * @return next move for the bot
      */
     public String nextMove(GameState gs) {
+
+        this.ponderHit = this.stopPondering(gs);
         
         if (gs.moves.size() == 0 && gs.playing == Side.WHITE) {
             this.board = new BitChessBoard();
@@ -42,198 +79,246 @@ public class PiketulusBot implements ChessBot {
                 board.makeMove(move);
             }
             this.start = false;
+            this.ponderHit = false;
         } else if (gs.getMoveCount() > 0) {
             String lastMove = gs.getLatestMove();
             board.makeMove(lastMove);
         }
 
-        String bestMove = iterDeepNextMove(maxDepth, board, gs.playing, gs.playing);
+        int bestMove;
+        if (this.ponderHit && this.ponderFinished) {
+            bestMove = this.ponderResult;
+        } else {
+            this.timeManager.startFromClock(gs.getRemainingTime(), gs.getIncrement(), gs.getMoveCount());
+            if (this.ponderHit) {
+                this.timeManager.ponderHit(this.ponderTime);
+            } else {
+                this.transpositionTable.clear();
+            }
+            for (Searcher searcher : this.searchers) {
+                searcher.resetStop();
+            }
+            bestMove = this.runSearch(board, gs.playing, Searcher.MAX_PLY, this.timeManager);
+        }
 
-        if (bestMove == null) {
+        if (bestMove == 0) {
             return null;
         } else {
             board.makeMove(bestMove);
-            return bestMove;
+            if (this.pondering) {
+                long opponentTime = gs.getRemainingTimeOpponent();
+                this.startPondering(gs.playing, opponentTime > 0 ? opponentTime : this.defaultPonderTime);
+            }
+            return MoveParser.intToMove(bestMove);
         }
     }
 
+
     /**
-     * Finds the best move for the bot using iterative deepening.
-     * @param maxDepth maximum depth for the search
-     * @param board current board state
-     * @param turn side to move
-     * @param playing side that bot is playing
-     * @return best move for the bot
+     * Starts searching the position after the predicted reply of the opponent on a background thread.
+     * The reply is the best move stored in the transposition table for the position after the bot's move,
+     * if there is no such move the bot does not ponder. The transposition table is kept,
+     * since the search that just finished already filled it for the position being pondered on.
+     * The search is stopped by the next call to nextMove() or gameOver(), and at the latest after the given time,
+     * which the opponent can not take longer than.
+     * @param playing side that the bot plays
+     * @param maxTime longest time to ponder in milliseconds
      */
-    private String iterDeepNextMove(int maxDepth, BitChessBoard board, Side turn, Side playing) {
-        String bestFoundMove = null;
-        MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, turn);
-        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
-        ArrayList<String> moves = mg.getMoves();
-        if (moves.size() == 0) {
-            return null;
+    private void startPondering(Side playing, long maxTime) {
+        Side opponent = playing == Side.WHITE ? Side.BLACK : Side.WHITE;
+        long entry = this.transpositionTable.probe(this.board.getHash());
+        if (entry == TranspositionTable.MISS) {
+            return;
         }
-
-        this.tranpositionTable.clear();
-
-        long startTime = System.currentTimeMillis();
-        for (int d = 2; d <= maxDepth; d++) {
-            String bestMove = null;
-            int bestScore = Integer.MIN_VALUE;
-            for (String move : moves) {
-                if (System.currentTimeMillis() - startTime > this.maxTime) {
-                    return bestFoundMove;
-                }
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                int score = alphaBetaMinimax(d - 1, newBoard, Integer.MIN_VALUE, 
-                                             Integer.MAX_VALUE, opposite, playing);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
+        int compactMove = TranspositionTable.getMove(entry);
+        MoveGenerator mg = new MoveGenerator(this.board.getBoard(), this.board.enpassantable,
+                                             this.board.castlingRights, opponent);
+        this.ponderMove = 0;
+        for (int move : mg.getMoves()) {
+            if (MoveParser.getCompact(move) == compactMove) {
+                this.ponderMove = move;
+                break;
             }
-            bestFoundMove = bestMove;
         }
-        return bestFoundMove;
+        if (this.ponderMove == 0) {
+            return;
+        }
+
+        BitChessBoard ponderBoard = new BitChessBoard(this.board);
+        ponderBoard.makeMove(this.ponderMove);
+        TimeManager ponderTimeManager = new TimeManager();
+        ponderTimeManager.startFixed(maxTime);
+
+        for (Searcher searcher : this.searchers) {
+            searcher.resetStop();
+        }
+        this.ponderFinished = false;
+        this.ponderStartTime = System.currentTimeMillis();
+        this.ponderThread = new Thread(() -> {
+            this.ponderResult = this.runSearch(ponderBoard, playing, Searcher.MAX_PLY, ponderTimeManager);
+            this.ponderFinished = !this.searchers[0].isStopped();
+        }, "PiketulusBot ponder");
+        this.ponderThread.setDaemon(true);
+        this.ponderThread.start();
     }
 
+
     /**
-     * Finds the best move for the bot using alpha-beta pruning at a given depth.
-     * @param d depth of the search
-     * @param board current board state
-     * @param alpha alpha value
-     * @param beta beta value
-     * @param turn side to move
-     * @param playing side that bot is playing
-     * @return score of the best move
+     * Stops pondering if the bot is pondering, and waits for the search threads to finish.
+     * @param gs current game state, or null if the game is over
+     * @return true if the opponent played the move the bot was pondering on
      */
-    private int alphaBetaMinimax(int d, BitChessBoard board, int alpha, int beta, Side turn, Side playing) {
-        
-        String exact = "t";
+    public boolean stopPondering(GameState gs) {
+        if (this.ponderThread == null) {
+            return false;
+        }
+        for (Searcher searcher : this.searchers) {
+            searcher.stop();
+        }
+        try {
+            this.ponderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.ponderThread = null;
+        this.ponderTime = System.currentTimeMillis() - this.ponderStartTime;
+        return gs != null && gs.getMoveCount() > 0 
+                && gs.getLatestMove().equals(MoveParser.intToMove(this.ponderMove));
+    }
+
+
+    /**
+     * Stops pondering when the game has ended, so that no search keeps running after the game.
+     */
+    @Override
+    public void gameOver() {
+        this.stopPondering(null);
+    }
+
+
+    /**
+     * The reply of the opponent the bot is currently pondering on.
+     * @return predicted move in UCI format, or null if the bot is not pondering
+     */
+    public String getPonderMove() {
+        return this.ponderThread == null ? null : MoveParser.intToMove(this.ponderMove);
+    }
+
+
+    /**
+     * Whether the opponent played the predicted move before the latest call to nextMove().
+     * @return true on a ponder hit
+     */
+    public boolean wasPonderHit() {
+        return this.ponderHit;
+    }
+
 
-        if (d == 0) {
-            return PositionEvaluator.evaluatePosition(board.getBoard(), playing);
+    /**
+     * Sets whether the bot searches on the opponent's time.
+     * @param pondering true to ponder
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            this.stopPondering(null);
         }
+    }
 
-        long hash = this.hasher.getHash(board, turn);
 
-        String lastFoundBestMove = null;
+    /**
+     * Searches for the best move for at most the given time.
+     * @param board current board state
+     * @param turn side to move
+     * @param depth maximum depth for the search
+     * @param maxTime max time for the search in milliseconds
+     * @return best move found, or 0 if there are no legal moves
+     */
+    public int search(BitChessBoard board, Side turn, int depth, long maxTime) {
+        TimeManager fixedTime = new TimeManager();
+        fixedTime.startFixed(maxTime);
+        return this.search(board, turn, depth, fixedTime);
+    }
 
-        if (this.tranpositionTable.containsKey(hash)) {
-            String[] entry = this.tranpositionTable.get(hash);
-            if (Integer.parseInt(entry[2]) >= d) {
-                if (entry[3].equals("t")) {
-                    return Integer.parseInt(entry[1]);
-                } else if (entry[3].equals("f") && turn == playing) {
-                    alpha = Math.max(alpha, Integer.parseInt(entry[1]));
-                } else {
-                    beta = Math.min(beta, Integer.parseInt(entry[1]));
-                }
 
-                if (beta <= alpha) {
-                    return Integer.parseInt(entry[1]);
-                }
+    /**
+     * Searches for the best move from an empty transposition table.
+     * @param board current board state
+     * @param turn side to move
+     * @param depth maximum depth for the search
+     * @param timeManager time manager that has been started for this move
+     * @return best move found, or 0 if there are no legal moves
+     */
+    public int search(BitChessBoard board, Side turn, int depth, TimeManager timeManager) {
+        this.transpositionTable.clear();
+        for (Searcher searcher : this.searchers) {
+            searcher.resetStop();
+        }
+        return this.runSearch(board, turn, depth, timeManager);
+    }
 
-            } else {
-                lastFoundBestMove = entry[0];
-            }
+
+    /**
+     * Searches for the best move with Lazy SMP: helper threads search the same position
+     * at the same time as the main thread, sharing the transposition table with it.
+     * The move found by the main thread is returned once it finishes, and the helpers are stopped.
+     * Only the main thread follows the time manager, the helpers just stop at its hard limit at the latest.
+     * The transposition table is not cleared, and the searchers are not reset if they have been stopped.
+     * @param board current board state
+     * @param turn side to move
+     * @param depth maximum depth for the search
+     * @param timeManager time manager that has been started for this move
+     * @return best move found, or 0 if there are no legal moves
+     */
+    private int runSearch(BitChessBoard board, Side turn, int depth, TimeManager timeManager) {
+
+        Thread[] helpers = new Thread[this.searchers.length - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Searcher helper = this.searchers[i + 1];
+            BitChessBoard helperBoard = new BitChessBoard(board);
+            helpers[i] = new Thread(() -> helper.iterDeepNextMove(helperBoard, turn, depth, 
+                                                                      timeManager.getHardLimit()),
+                                    "PiketulusBot helper " + (i + 1));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
         }
 
-        MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, turn);
-        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
-        ArrayList<String> moves = mg.getMoves();
+        int bestMove = this.searchers[0].iterDeepNextMove(board, turn, depth, timeManager);
 
-        if (moves.size() == 0) {
-            if (mg.kingInCheck > 0 && turn == playing) {
-                return Integer.MIN_VALUE + (this.maxDepth - d);
-            } else if (mg.kingInCheck > 0 && turn != playing) {
-                return Integer.MAX_VALUE - (this.maxDepth - d);
-            } else {
-                return 0;
+        for (int i = 0; i < helpers.length; i++) {
+            this.searchers[i + 1].stop();
+        }
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
 
-        if (turn == playing) {
-            int bestScore = Integer.MIN_VALUE;
-            String bestMove = null;
-
-            if (lastFoundBestMove != null) {
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(lastFoundBestMove);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = lastFoundBestMove;
-                }
-                alpha = Math.max(alpha, score);
-                if (beta <= alpha) {
-                    this.tranpositionTable.put(hash, 
-                            new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), "f"});
-                    return bestScore;
-                }
-            }
+        return bestMove;
+    }
 
-            for (String move : moves) {
-                if (move.equals(lastFoundBestMove)) {
-                    continue;
-                }
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
-                alpha = Math.max(alpha, score);
-                if (beta <= alpha) {
-                    exact = "f";
-                    break;
-                }
-            }
-            this.tranpositionTable.put(hash, 
-                    new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), exact});
-            return bestScore;
-        } else {
-            int bestScore = Integer.MAX_VALUE;
-            String bestMove = null;
-
-            if (lastFoundBestMove != null) {
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(lastFoundBestMove);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestMove = lastFoundBestMove;
-                }
-                beta = Math.min(beta, score);
-                if (beta <= alpha) {
-                    this.tranpositionTable.put(hash, 
-                            new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), "f"});
-                    return bestScore;
-                }
-            }
 
-            for (String move : moves) {
-                if (move.equals(lastFoundBestMove)) {
-                    continue;
-                }
-                BitChessBoard newBoard = new BitChessBoard(board);
-                newBoard.makeMove(move);
-                int score = alphaBetaMinimax(d - 1, newBoard, alpha, beta, opposite, playing);
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestMove = move;
-                }
-                beta = Math.min(beta, score);
-                if (beta <= alpha) {
-                    exact = "f";
-                    break;
-                }
-            }
-            this.tranpositionTable.put(hash, 
-                    new String[]{bestMove, Integer.toString(bestScore), Integer.toString(d), exact});
-            return bestScore;
+    /**
+     * Total number of nodes visited by all search threads in the latest search.
+     * @return node count
+     */
+    public long getNodes() {
+        long nodes = 0;
+        for (Searcher searcher : this.searchers) {
+            nodes += searcher.getNodes();
         }
+        return nodes;
     }
+
+
+    /**
+     * Deepest iteration finished by the main search thread in the latest search.
+     * @return depth, 0 if no iteration was finished
+     */
+    public int getCompletedDepth() {
+        return this.searchers[0].getCompletedDepth();
+    }
+
 }
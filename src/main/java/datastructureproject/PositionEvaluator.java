@@ -1,7 +1,5 @@
 package datastructureproject;
 
-import java.util.ArrayList;
-
 import chess.model.Side;
 
 /**
@@ -9,22 +7,6 @@ import chess.model.Side;
  */
 public class PositionEvaluator {
 
-    private static int score = 0;
-
-    private static long whitePawns = 0L;
-    private static long whiteKnights = 0L;
-    private static long whiteBishops = 0L;
-    private static long whiteRooks = 0L;
-    private static long whiteQueens = 0L;
-    private static long whiteKing = 0L;
-
-    private static long blackPawns = 0L;
-    private static long blackKnights = 0L;
-    private static long blackBishops = 0L;
-    private static long blackRooks = 0L;
-    private static long blackQueens = 0L;
-    private static long blackKing = 0L;
-
     // piece/sq tables 
     // values from Rofchade: http://www.talkchess.com/forum3/viewtopic.php?f=2&t=68311&start=19
 
@@ -171,24 +153,36 @@ public class PositionEvaluator {
 
     private static final int gamePhaseValues[] = {0, 1, 1, 2, 4, 0};
 
-    //for white pieces value from table would be by getting 63 - index where index is (row * 8 + (7-col))
-    //for black pieces we can just use the index directly where index is (row * 8 + col)
-    
+    // Piece values and piece square tables combined for each piece type in the order of BitChessBoard.getBoard(),
+    // black values are negative so that the score is from white's point of view.
+    // For white pieces the table index is mirrored vertically (square ^ 56), for black pieces it is the square.
+    static final int[][] mgScores = new int[12][64];
+    static final int[][] egScores = new int[12][64];
+
+    static {
+        for (int pieceType = 0; pieceType < 6; pieceType++) {
+            for (int square = 0; square < 64; square++) {
+                mgScores[pieceType][square] = mg_values[pieceType] + mg_tables[pieceType][square ^ 56];
+                egScores[pieceType][square] = eg_values[pieceType] + eg_tables[pieceType][square ^ 56];
+                mgScores[pieceType + 6][square] = -(mg_values[pieceType] + mg_tables[pieceType][square]);
+                egScores[pieceType + 6][square] = -(eg_values[pieceType] + eg_tables[pieceType][square]);
+            }
+        }
+    }
+
 
     /**
      * Evaluates a score for a given position. To be called from outside the class.
+     * The board keeps its material and piece square table scores up to date in makeMove(),
+     * so this only tapers them by the game phase.
+     * Keeps no state, so it can be called from many threads at once.
      * @param board current board state
-     * @param side side to move
+     * @param side side to get the score for
      * @return score of the position
      */
-    public static int evaluatePosition(long[] board, Side side) {
-
-        score = 0;
+    public static int evaluatePosition(BitChessBoard board, Side side) {
 
-        resetBitboards();
-        fillBitboards(board);
-
-        score += evaluateMaterialAndTables();
+        int score = taper(board.getMiddlegameScore(), board.getEndgameScore(), board.getGamePhase());
 
         if (side == Side.BLACK) {
             score *= -1;
@@ -197,121 +191,113 @@ public class PositionEvaluator {
         return score;
     }
 
+
     /**
-     * Evaluates the material and piece square tables for a given position.
-     * @return material and piece square table score
+     * Evaluates a score for a given position by summing the scores of all pieces,
+     * used for verifying the scores kept by the board.
+     * @param board current board state
+     * @param side side to get the score for
+     * @return score of the position
      */
-    private static int evaluateMaterialAndTables() {
-        int gamePhase = 0;
-
-        int mgScoreWhite = 0;
-        int egScoreWhite = 0;
-
-        int mgScoreBlack = 0;
-        int egScoreBlack = 0;
-
-        ArrayList<Long> whitePieces = new ArrayList<>();
-        whitePieces.add(whitePawns);
-        whitePieces.add(whiteKnights);
-        whitePieces.add(whiteBishops);
-        whitePieces.add(whiteRooks);
-        whitePieces.add(whiteQueens);
-        whitePieces.add(whiteKing);
-
-        ArrayList<Long> blackPieces = new ArrayList<>();
-        blackPieces.add(blackPawns);
-        blackPieces.add(blackKnights);
-        blackPieces.add(blackBishops);
-        blackPieces.add(blackRooks);
-        blackPieces.add(blackQueens);
-        blackPieces.add(blackKing);
-
-        //evaluate white pieces
-        for (int i = 0; i < whitePieces.size(); i++) {
-            long bitboard = whitePieces.get(i);
-            while (bitboard != 0) {
-                int index = Long.numberOfTrailingZeros(bitboard);
-                int row = index / 8;
-                int col = index % 8;
-                int whiteIndex = 63 - (row * 8 + (7 - col));
-                int pieceType = i;
-                mgScoreWhite += mg_values[pieceType];
-                egScoreWhite += eg_values[pieceType];
-
-                mgScoreWhite += mg_tables[pieceType][whiteIndex];
-                egScoreWhite += eg_tables[pieceType][whiteIndex];
-
-                gamePhase += gamePhaseValues[pieceType];
-
-                bitboard &= ~(1L << index);
-            }
-        }
+    public static int evaluatePositionFromScratch(BitChessBoard board, Side side) {
 
-        //evaluate black pieces
-        for (int i = 0; i < blackPieces.size(); i++) {
-            long bitboard = blackPieces.get(i);
-            while (bitboard != 0) {
-                int index = Long.numberOfTrailingZeros(bitboard);
-                int pieceType = i;
-                mgScoreBlack += mg_values[pieceType];
-                egScoreBlack += eg_values[pieceType];
+        int score = taper(sumScores(mgScores, board), sumScores(egScores, board), sumGamePhase(board));
 
-                mgScoreBlack += mg_tables[pieceType][index];
-                egScoreBlack += eg_tables[pieceType][index];
-
-                gamePhase += gamePhaseValues[pieceType];
-
-                bitboard &= ~(1L << index);
-            }
+        if (side == Side.BLACK) {
+            score *= -1;
         }
 
-        int mgScore = mgScoreWhite - mgScoreBlack;
-        int egScore = egScoreWhite - egScoreBlack;
+        return score;
+    }
+
 
+    /**
+     * Blends the middle game and end game scores by the game phase.
+     * @param mgScore middle game score from white's point of view
+     * @param egScore end game score from white's point of view
+     * @param gamePhase game phase, 24 or more in the opening and 0 when only pawns and kings are left
+     * @return tapered score
+     */
+    private static int taper(int mgScore, int egScore, int gamePhase) {
         if (gamePhase > 24) {
             gamePhase = 24;
         }
 
-        int scoreFinal = (mgScore * gamePhase + egScore * (24 - gamePhase)) / 24;
+        return (mgScore * gamePhase + egScore * (24 - gamePhase)) / 24;
+    }
+
+
+    /**
+     * Middle game value of a piece on a square, including the piece square table.
+     * @param pieceType piece type in the order of BitChessBoard.getBoard()
+     * @param square index of the square
+     * @return value from white's point of view
+     */
+    public static int getMiddlegameScore(int pieceType, int square) {
+        return mgScores[pieceType][square];
+    }
+
+
+    /**
+     * End game value of a piece on a square, including the piece square table.
+     * @param pieceType piece type in the order of BitChessBoard.getBoard()
+     * @param square index of the square
+     * @return value from white's point of view
+     */
+    public static int getEndgameScore(int pieceType, int square) {
+        return egScores[pieceType][square];
+    }
 
-        return scoreFinal;
 
+    /**
+     * How much a piece adds to the game phase.
+     * @param pieceType piece type in the order of BitChessBoard.getBoard()
+     * @return game phase value
+     */
+    public static int getGamePhaseValue(int pieceType) {
+        return gamePhaseValues[pieceType % 6];
     }
 
 
-    private static void resetBitboards() {
-        whitePawns = 0L;
-        whiteKnights = 0L;
-        whiteBishops = 0L;
-        whiteRooks = 0L;
-        whiteQueens = 0L;
-        whiteKing = 0L;
+    /**
+     * Sums the values of all pieces on the board.
+     * @param scores mgScores or egScores
+     * @param board current board state
+     * @return sum from white's point of view
+     */
+    static int sumScores(int[][] scores, BitChessBoard board) {
+        return sumScores(scores[0], board.whitePawns) + sumScores(scores[1], board.whiteKnights)
+             + sumScores(scores[2], board.whiteBishops) + sumScores(scores[3], board.whiteRooks)
+             + sumScores(scores[4], board.whiteQueens) + sumScores(scores[5], board.whiteKing)
+             + sumScores(scores[6], board.blackPawns) + sumScores(scores[7], board.blackKnights)
+             + sumScores(scores[8], board.blackBishops) + sumScores(scores[9], board.blackRooks)
+             + sumScores(scores[10], board.blackQueens) + sumScores(scores[11], board.blackKing);
+    }
 
-        blackPawns = 0L;
-        blackKnights = 0L;
-        blackBishops = 0L;
-        blackRooks = 0L;
-        blackQueens = 0L;
-        blackKing = 0L;
 
+    /**
+     * Game phase from the number of minor and major pieces on the board.
+     * @param board current board state
+     * @return game phase, not capped at 24
+     */
+    static int sumGamePhase(BitChessBoard board) {
+        return gamePhaseValues[1] * Long.bitCount(board.whiteKnights | board.blackKnights)
+             + gamePhaseValues[2] * Long.bitCount(board.whiteBishops | board.blackBishops)
+             + gamePhaseValues[3] * Long.bitCount(board.whiteRooks | board.blackRooks)
+             + gamePhaseValues[4] * Long.bitCount(board.whiteQueens | board.blackQueens);
     }
 
 
-    private static void fillBitboards(long[] board) {
-        whitePawns = board[0];
-        whiteKnights = board[1];
-        whiteBishops = board[2];
-        whiteRooks = board[3];
-        whiteQueens = board[4];
-        whiteKing = board[5];
-
-        blackPawns = board[6];
-        blackKnights = board[7];
-        blackBishops = board[8];
-        blackRooks = board[9];
-        blackQueens = board[10];
-        blackKing = board[11];
-        
+    /**
+     * Sums the scores of the squares of the pieces on the bitboard.
+     */
+    private static int sumScores(int[] scores, long bitboard) {
+        int sum = 0;
+        while (bitboard != 0L) {
+            sum += scores[Long.numberOfTrailingZeros(bitboard)];
+            bitboard &= bitboard - 1;
+        }
+        return sum;
     }
 
 
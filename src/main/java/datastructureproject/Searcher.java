@@ -0,0 +1,673 @@
+package datastructureproject;
+
+import chess.model.Side;
+
+/**
+ * Searches for the best move in a position using iteratively deepening negamax with alpha-beta pruning.
+ * Scores are always from the point of view of the side to move, so the score of a position is the negation
+ * of the best score of its children, and one search function covers both sides.
+ * Each search thread of the bot has its own searcher, and all searchers share one transposition table
+ * so that the threads can use each others results (Lazy SMP).
+ */
+public class Searcher {
+
+    // the clock is checked once every 2048 nodes
+    private static final long STOP_CHECK_MASK = 2047;
+
+    // bound of the score range, the full window is (-INFINITY, INFINITY)
+    // kept far from the int limits so that scores can be negated and windows widened without overflow
+    private static final int INFINITY = 32000;
+    // score of giving checkmate at the root, a mate at ply p scores MATE - p for the winner and -MATE + p for the loser
+    private static final int MATE = 31000;
+
+    // aspiration windows are used from this depth on, starting this wide (centipawns) around the previous score
+    private static final int ASPIRATION_MIN_DEPTH = 5;
+    private static final int ASPIRATION_WINDOW = 25;
+
+    /**
+     * Deepest ply the search can reach, quiescence search evaluates the position instead of going deeper.
+     * Also a depth limit that the time limits always end the iterative deepening before.
+     */
+    public static final int MAX_PLY = 128;
+
+    // scores beyond this are mates, evaluations always stay well inside it
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+
+    // history scores of a side are halved when one of them goes over this, so recent cutoffs weigh more
+    private static final int MAX_HISTORY = 1 << 20;
+
+    // null move pruning is tried from this depth on, with a reduction that grows with the depth
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+
+    // late move reductions apply to quiet moves from this depth on, once this many moves have been searched
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    // late move pruning skips the rest of the quiet moves up to this depth, after 3 + depth^2 moves
+    private static final int LMP_MAX_DEPTH = 3;
+
+    // reduction by remaining depth and number of moves searched, growing with the logarithm of both
+    private static final int[][] LMR_REDUCTIONS = new int[64][64];
+
+    static {
+        for (int d = 1; d < 64; d++) {
+            for (int moves = 1; moves < 64; moves++) {
+                LMR_REDUCTIONS[d][moves] = (int) (0.75 + Math.log(d) * Math.log(moves) / 2.25);
+            }
+        }
+    }
+
+    private final TranspositionTable transpositionTable;
+    private final int id; // 0 for the main search thread, 1 or more for helper threads
+
+    private long nodes = 0;
+    private volatile boolean stopped = false; // set from other threads, stays set until resetStop()
+    private boolean aborted = false; // set when the current search has to unwind
+    private TimeManager timeManager;
+
+    // reused at every node so that the search does not allocate, each ply has its own generator and move list
+    private final MoveGenerator[] moveGenerators = new MoveGenerator[MAX_PLY + 1];
+    private final MovePicker[] movePickers = new MovePicker[MAX_PLY + 1];
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+    // quiet moves that caused a beta cutoff, two for each ply in compact format, cleared for every move
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // butterfly history: how well quiet moves have done by side, from and to square, halved between moves
+    private final int[][][] history = new int[2][64][64];
+
+    private int rootBestMove; // best move of the latest root search, 0 if no move scored above alpha
+    private int completedDepth; // deepest iteration finished in the latest search
+    private long cutoffs; // beta cutoffs in the main search
+    private long firstMoveCutoffs; // beta cutoffs caused by the first move searched
+
+
+    public Searcher(TranspositionTable transpositionTable, int id) {
+        this.transpositionTable = transpositionTable;
+        this.id = id;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            this.moveGenerators[ply] = new MoveGenerator();
+            this.movePickers[ply] = new MovePicker();
+        }
+    }
+
+
+    /**
+     * Finds the best move using iterative deepening, searching for at most the given time.
+     * @param board current board state
+     * @param turn side to move
+     * @param maxDepth maximum depth for the search
+     * @param maxTime max time for the search in milliseconds
+     * @return best move found, or 0 if there are no legal moves or no depth was completed
+     */
+    public int iterDeepNextMove(BitChessBoard board, Side turn, int maxDepth, long maxTime) {
+        TimeManager timeManager = new TimeManager();
+        timeManager.startFixed(maxTime);
+        return this.iterDeepNextMove(board, turn, maxDepth, timeManager);
+    }
+
+
+    /**
+     * Finds the best move using iterative deepening.
+     * After each completed depth the time manager decides if the next depth is started.
+     * Inside the tree the hard limit of the time manager is checked every few thousand nodes, and once it is reached,
+     * or the search is stopped from another thread, the search unwinds without storing anything.
+     * The best move of the previous depth is searched first, so if it has been searched fully when the search stops,
+     * the best of the fully searched moves of the unfinished depth is used.
+     * From ASPIRATION_MIN_DEPTH on, each depth is first searched with a narrow window around the score of the previous
+     * depth, and if the score falls outside it, searched again with the window widened on that side
+     * (https://www.chessprogramming.org/Aspiration_Windows).
+     * Helper threads start from an odd or even depth depending on their id, so that the threads
+     * are spread over neighbouring depths and fill the shared transposition table for each other.
+     * @param board current board state
+     * @param turn side to move
+     * @param maxDepth maximum depth for the search
+     * @param timeManager time manager that has been started for this move
+     * @return best move found, or 0 if there are no legal moves
+     */
+    public int iterDeepNextMove(BitChessBoard board, Side turn, int maxDepth, TimeManager timeManager) {
+        this.moveGenerators[0].reset(board, turn);
+        int[] moves = this.moveGenerators[0].getMoves();
+        if (moves.length == 0) {
+            return 0;
+        }
+
+        this.aborted = false;
+        this.nodes = 0;
+        this.completedDepth = 0;
+        this.cutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        this.ageHeuristics();
+        this.timeManager = timeManager;
+
+        int bestFoundMove = moves[0]; // played if not even the first depth is finished
+        int score = 0;
+        for (int d = 2 + this.id % 2; d <= maxDepth; d++) {
+            int delta = ASPIRATION_WINDOW;
+            int alpha = -INFINITY;
+            int beta = INFINITY;
+            if (d >= ASPIRATION_MIN_DEPTH) {
+                alpha = widen(score, -delta);
+                beta = widen(score, delta);
+            }
+            while (true) {
+                score = this.searchRoot(d, board, moves, alpha, beta, turn);
+                if (this.aborted) {
+                    return this.rootBestMove != 0 ? this.rootBestMove : bestFoundMove;
+                }
+                if (score <= alpha) {
+                    alpha = widen(alpha, -delta);
+                } else if (score >= beta) {
+                    beta = widen(beta, delta);
+                } else {
+                    break;
+                }
+                delta *= 2;
+            }
+            bestFoundMove = this.rootBestMove;
+            this.completedDepth = d;
+            moveToFront(moves, bestFoundMove);
+            if (timeManager.iterationFinished(bestFoundMove, score)) {
+                break;
+            }
+        }
+        return bestFoundMove;
+    }
+
+
+    /**
+     * Searches all root moves with principal variation search, the first move with the full window
+     * and the rest with a null window first. The best move is left in rootBestMove,
+     * or 0 if no move scored above alpha, in which case the search failed low.
+     * @return score of the best move, at most alpha if it failed low and at least beta if it failed high
+     */
+    private int searchRoot(int d, BitChessBoard board, int[] moves, int alpha, int beta, Side turn) {
+        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
+        int bestScore = -INFINITY;
+        this.rootBestMove = 0;
+        for (int i = 0; i < moves.length; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -this.negamax(d - 1, 1, board, -beta, -alpha, opposite, true);
+            } else {
+                score = -this.negamax(d - 1, 1, board, -alpha - 1, -alpha, opposite, true);
+                if (score > alpha && score < beta) {
+                    score = -this.negamax(d - 1, 1, board, -beta, -alpha, opposite, true);
+                }
+            }
+            board.unmakeMove(move);
+            if (this.aborted) {
+                break;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                this.rootBestMove = move;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+
+    /**
+     * Moves a score the given amount away from it, staying inside the score range.
+     */
+    private static int widen(int score, int amount) {
+        return Math.max(-INFINITY, Math.min(INFINITY, score + amount));
+    }
+
+
+    /**
+     * Converts a score to be stored in the transposition table. Mate scores in the search count the plies
+     * from the root, but the same position can be reached at any ply, so they are stored counting the plies
+     * from the position itself instead.
+     * @param score score of the position
+     * @param ply distance of the position from the root
+     * @return score to store
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+
+    /**
+     * Converts a score read from the transposition table back to count mates from the root, see scoreToTable().
+     * @param score stored score
+     * @param ply distance of the position from the root
+     * @return score of the position in the search
+     */
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+
+    /**
+     * Stops the search as soon as possible, can be called from other threads.
+     * If the search has not started yet, it stops right after starting.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+
+    /**
+     * Checks if stop() has been called since the last resetStop().
+     * @return true if stopped
+     */
+    public boolean isStopped() {
+        return this.stopped;
+    }
+
+
+    /**
+     * Allows the searcher to search again after stop().
+     */
+    public void resetStop() {
+        this.stopped = false;
+    }
+
+
+    /**
+     * Number of nodes visited in the latest search.
+     * @return node count
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+
+    /**
+     * Deepest iteration of iterative deepening that was finished in the latest search.
+     * @return depth, 0 if no iteration was finished
+     */
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+
+    /**
+     * Fraction of the beta cutoffs of the latest search that were caused by the first move searched in the node,
+     * a measure of how good the move ordering is.
+     * @return first move cutoff rate between 0 and 1, 0 if there were no cutoffs
+     */
+    public double getFirstMoveCutoffRate() {
+        return this.cutoffs == 0 ? 0 : (double) this.firstMoveCutoffs / this.cutoffs;
+    }
+
+
+    /**
+     * Checks if the search should be aborted because it was stopped or the hard time limit was reached.
+     * Reading the clock is slow compared to searching a node, so it is read only every few thousand nodes.
+     * @return true if the search has to unwind
+     */
+    private boolean shouldAbort() {
+        if (this.stopped || (this.nodes & STOP_CHECK_MASK) == 0 && this.timeManager.isHardLimitReached()) {
+            this.aborted = true;
+        }
+        return this.aborted;
+    }
+
+
+    /**
+     * Moves the given move to the front of the array, keeping the order of the others.
+     */
+    private static void moveToFront(int[] moves, int move) {
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Searches a position with alpha-beta pruning, using principal variation search
+     * (https://www.chessprogramming.org/Principal_Variation_Search): once the first move has been searched,
+     * the rest are expected to be worse, and are only proven to be so with a null window search.
+     * A move is searched again with the full window only if it turns out better than the best move so far.
+     * @param d depth of the search
+     * @param ply distance from the root, selects the move list of the node
+     * @param board current board state
+     * @param alpha alpha value
+     * @param beta beta value
+     * @param turn side to move
+     * @param allowNull false right after a null move, so that two null moves are never made in a row
+     * @return score of the best move for the side to move
+     */
+    private int negamax(int d, int ply, BitChessBoard board, int alpha, int beta, Side turn, boolean allowNull) {
+
+        // repeating a position of the game or the search path, or reaching the fifty-move limit, is a draw
+        if (board.isDraw()) {
+            return 0;
+        }
+
+        if (d == 0 || ply >= MAX_PLY) {
+            return quiescence(ply, board, alpha, beta, turn);
+        }
+
+        this.nodes++;
+        if (this.shouldAbort()) {
+            return 0;
+        }
+
+        // mate distance pruning: no score here can be better than mating on the next move or worse than
+        // being mated now, so if a faster mate has already been found elsewhere the node cannot matter
+        alpha = Math.max(alpha, -MATE + ply);
+        beta = Math.min(beta, MATE - ply - 1);
+        if (alpha >= beta) {
+            return alpha;
+        }
+
+        long hash = board.getHash();
+
+        int hashMove = 0;
+
+        long entry = this.transpositionTable.probe(hash);
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.getMove(entry);
+            int entryScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+            if (TranspositionTable.getDepth(entry) >= d) {
+                int entryBound = TranspositionTable.getBound(entry);
+                if (entryBound == TranspositionTable.EXACT) {
+                    return entryScore;
+                } else if (entryBound == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, entryScore);
+                } else {
+                    beta = Math.min(beta, entryScore);
+                }
+
+                if (beta <= alpha) {
+                    return entryScore;
+                }
+            }
+        }
+
+        MoveGenerator mg = this.moveGenerators[ply];
+        mg.reset(board, turn);
+
+        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
+        boolean inCheck = mg.kingInCheck > 0;
+
+        if (allowNull && d >= NULL_MOVE_MIN_DEPTH && !inCheck && hasPiecesOtherThanPawns(board, turn)) {
+            int nullScore = this.nullMoveSearch(d, ply, board, beta, turn, opposite);
+            if (this.aborted) {
+                return 0;
+            }
+            if (nullScore >= beta) {
+                return beta;
+            }
+        }
+
+        MovePicker picker = this.movePickers[ply];
+        int[] plyKillers = this.killers[ply];
+        picker.init(mg, hashMove, plyKillers[0], plyKillers[1], this.history[turn == Side.WHITE ? 0 : 1]);
+
+        int bound = TranspositionTable.UPPER_BOUND;
+        int bestScore = -INFINITY;
+        int bestMove = 0;
+        int searched = 0;
+
+        int move;
+        while ((move = picker.next()) != 0) {
+            boolean lateQuiet = !inCheck && picker.isQuietStage();
+
+            // late move pruning: at shallow depth the quiet moves left at the end of the ordering are skipped
+            if (lateQuiet && d <= LMP_MAX_DEPTH && searched >= 3 + d * d) {
+                break;
+            }
+
+            int reduction = 0;
+            if (lateQuiet && d >= LMR_MIN_DEPTH && searched >= LMR_MIN_MOVES) {
+                reduction = getLateMoveReduction(d, searched);
+            }
+
+            board.makeMove(move);
+            int score;
+            if (searched == 0) {
+                score = -negamax(d - 1, ply + 1, board, -beta, -alpha, opposite, true);
+            } else {
+                // late move reduction: the null window search is first done with reduced depth,
+                // and repeated at full depth only if the move turns out better than expected
+                score = -negamax(d - 1 - reduction, ply + 1, board, -alpha - 1, -alpha, opposite, true);
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(d - 1, ply + 1, board, -alpha - 1, -alpha, opposite, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(d - 1, ply + 1, board, -beta, -alpha, opposite, true);
+                }
+            }
+            board.unmakeMove(move);
+            if (this.aborted) {
+                return 0;
+            }
+            searched++;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bound = TranspositionTable.EXACT;
+            }
+            if (alpha >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+                this.cutoffs++;
+                if (searched == 1) {
+                    this.firstMoveCutoffs++;
+                }
+                if (MovePicker.isQuiet(move)) {
+                    this.updateHeuristics(move, ply, d, turn);
+                }
+                break;
+            }
+        }
+
+        if (searched == 0) {
+            if (!inCheck) {
+                return 0;
+            }
+            return -MATE + ply;
+        }
+
+        this.transpositionTable.store(hash, bestMove, scoreToTable(bestScore, ply), d, bound);
+        return bestScore;
+    }
+
+
+    /**
+     * Depth reduction of a late quiet move, taken from the reduction table
+     * but always leaving at least one ply to search.
+     * @param d remaining depth, at least 2
+     * @param searched number of moves already searched in the node
+     * @return reduction in plies, between 0 and d - 2
+     */
+    public static int getLateMoveReduction(int d, int searched) {
+        return Math.min(d - 2, LMR_REDUCTIONS[Math.min(d, 63)][Math.min(searched, 63)]);
+    }
+
+
+    /**
+     * Null move pruning (https://www.chessprogramming.org/Null_Move_Pruning): the side to move passes,
+     * and if the position is still good enough for a cutoff after a reduced depth search,
+     * it would almost surely be good enough after a real move, so the node can be cut without searching it.
+     * Only tried when the static evaluation already reaches beta and beta is not a mate score, and never in check,
+     * where passing is illegal, or with only pawns left, where passing could be better than any move (zugzwang).
+     * @return score of the null window search after passing, or a score below beta if it was not tried
+     */
+    private int nullMoveSearch(int d, int ply, BitChessBoard board, int beta, Side turn, Side opposite) {
+        if (beta >= MATE_BOUND || PositionEvaluator.evaluatePosition(board, turn) < beta) {
+            return -INFINITY;
+        }
+
+        int reducedDepth = Math.max(0, d - 1 - NULL_MOVE_REDUCTION - d / 4);
+        board.makeNullMove();
+        int score = -negamax(reducedDepth, ply + 1, board, -beta, -beta + 1, opposite, false);
+        board.unmakeNullMove();
+        return score;
+    }
+
+
+    private static boolean hasPiecesOtherThanPawns(BitChessBoard board, Side side) {
+        if (side == Side.WHITE) {
+            return (board.whiteKnights | board.whiteBishops | board.whiteRooks | board.whiteQueens) != 0L;
+        }
+        return (board.blackKnights | board.blackBishops | board.blackRooks | board.blackQueens) != 0L;
+    }
+
+
+    /**
+     * Remembers a quiet move that caused a beta cutoff as a killer move of the ply, and raises its history score
+     * by the square of the remaining depth, since cutoffs near the root save the most work.
+     * @param move move that caused the cutoff
+     * @param ply distance from the root
+     * @param d remaining depth
+     * @param turn side that made the move
+     */
+    private void updateHeuristics(int move, int ply, int d, Side turn) {
+        int compactMove = MoveParser.getCompact(move);
+        int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != compactMove) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = compactMove;
+        }
+
+        int[][] sideHistory = this.history[turn == Side.WHITE ? 0 : 1];
+        int[] fromHistory = sideHistory[MoveParser.getFrom(move)];
+        int to = MoveParser.getTo(move);
+        fromHistory[to] += d * d;
+        if (fromHistory[to] > MAX_HISTORY) {
+            halveHistory(sideHistory);
+        }
+    }
+
+
+    /**
+     * Prepares the killer moves and history for a new search. Killer moves are tied to the plies of the previous
+     * position and are cleared, history scores are halved so that what was learned on earlier moves
+     * still orders moves but gives way to what is learned in the new search.
+     */
+    private void ageHeuristics() {
+        for (int[] plyKillers : this.killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        halveHistory(this.history[0]);
+        halveHistory(this.history[1]);
+    }
+
+
+    private static void halveHistory(int[][] sideHistory) {
+        for (int[] fromHistory : sideHistory) {
+            for (int to = 0; to < 64; to++) {
+                fromHistory[to] >>= 1;
+            }
+        }
+    }
+
+
+    /**
+     * Searches captures and promotions at the leaves until the position is quiet, so that the position
+     * is not evaluated in the middle of an exchange (https://www.chessprogramming.org/Quiescence_Search).
+     * The side to move may stand pat on the static evaluation instead of capturing, 
+     * unless it is in check, in which case all moves getting out of check are searched.
+     * @param ply distance from the root, selects the move list of the node
+     * @param board current board state
+     * @param alpha alpha value
+     * @param beta beta value
+     * @param turn side to move
+     * @return score of the position for the side to move
+     */
+    private int quiescence(int ply, BitChessBoard board, int alpha, int beta, Side turn) {
+
+        this.nodes++;
+        if (this.shouldAbort()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return PositionEvaluator.evaluatePosition(board, turn);
+        }
+
+        MoveGenerator mg = this.moveGenerators[ply];
+        mg.reset(board, turn);
+        Side opposite = turn == Side.WHITE ? Side.BLACK : Side.WHITE;
+
+        int bestScore;
+        int[] moves = this.moveBuffers[ply];
+        int count;
+
+        if (mg.kingInCheck > 0) {
+            count = mg.getMoves(moves);
+            if (count == 0) {
+                return -MATE + ply;
+            }
+            bestScore = -INFINITY;
+        } else {
+            bestScore = PositionEvaluator.evaluatePosition(board, turn);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+            count = mg.getCaptures(moves);
+        }
+
+        orderCaptures(moves, count);
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, board, -beta, -alpha, opposite);
+            board.unmakeMove(move);
+            if (this.aborted) {
+                return 0;
+            }
+            bestScore = Math.max(bestScore, score);
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return bestScore;
+    }
+
+
+    /**
+     * Sorts moves so that the most valuable victims are captured first, and with the least valuable attacker
+     * when there are several (MVV-LVA). Promotions are ordered as if they captured the promoted piece.
+     * @param moves moves to sort in place
+     * @param count number of moves in the array
+     */
+    private static void orderCaptures(int[] moves, int count) {
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int key = MovePicker.captureOrderKey(move);
+            int j = i - 1;
+            while (j >= 0 && MovePicker.captureOrderKey(moves[j]) < key) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = move;
+        }
+    }
+
+}
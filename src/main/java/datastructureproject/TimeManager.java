@@ -0,0 +1,189 @@
+package datastructureproject;
+
+/**
+ * Decides how long the bot may think on a move based on its remaining clock time.
+ * Every move gets a soft limit, after which no new iteration of the search is started,
+ * and a hard limit, after which the search is stopped no matter what.
+ * The soft limit is shortened when the best move has stayed the same for several iterations,
+ * and lengthened when the score of the best move drops, since then the position probably
+ * needs more thought (https://www.chessprogramming.org/Time_Management).
+ *
+ * <p>If the clock times are unknown (0), every move gets the fixed default move time instead.</p>
+ */
+public class TimeManager {
+
+    private long defaultMoveTime = 5000; // used when there is no clock, in milliseconds
+    private long maxMoveTime = 60000; // upper bound for the hard limit, in milliseconds
+    private long moveOverhead = 50; // time kept in reserve for network and GUI lag on every move
+    private int movesToGo = 40; // number of moves the remaining time is assumed to be divided over
+    private int minMovesToGo = 15; // lower bound for the number of moves left as the game goes on
+    private double hardLimitRatio = 4.0; // hard limit relative to the soft limit
+    private double maxClockFraction = 0.25; // largest fraction of the remaining time used on one move
+    private int stableIterations = 3; // iterations with the same best move before the soft limit is shortened
+    private double stableRatio = 0.5; // soft limit multiplier when the best move is stable
+    private int scoreDropMargin = 50; // drop in score (centipawns) between iterations that extends the search
+    private double scoreDropRatio = 2.0; // soft limit multiplier when the score drops
+
+    private long startTime;
+    private long softLimit;
+    private long hardLimit;
+    private int previousBestMove;
+    private int previousScore;
+    private int stableCount;
+    private boolean scoreDropped;
+
+
+    /**
+     * Starts timing a move that may take at most the given time, without any clock based adjustments.
+     * @param moveTime time for the move in milliseconds
+     */
+    public void startFixed(long moveTime) {
+        this.start(moveTime, moveTime);
+    }
+
+
+    /**
+     * Starts timing a move, computing its limits from the clock.
+     * The remaining time minus the overhead is divided over the moves assumed to be left,
+     * most of the increment is added on top, and the hard limit is capped to a fraction of the remaining time.
+     * @param remainingTime remaining time of the bot in milliseconds, 0 if unknown
+     * @param increment increment per move in milliseconds
+     * @param movesPlayed number of moves (plies) played in the game so far
+     */
+    public void startFromClock(long remainingTime, long increment, int movesPlayed) {
+        if (remainingTime <= 0) {
+            this.startFixed(this.defaultMoveTime);
+            return;
+        }
+        long available = Math.max(1, remainingTime - this.moveOverhead);
+        int movesLeft = Math.max(this.minMovesToGo, this.movesToGo - movesPlayed / 2);
+
+        long soft = available / movesLeft + increment * 3 / 4;
+        long hard = Math.min((long) (soft * this.hardLimitRatio), (long) (available * this.maxClockFraction));
+        hard = Math.max(1, Math.min(hard, this.maxMoveTime));
+        this.start(Math.min(soft, hard), hard);
+    }
+
+
+    private void start(long soft, long hard) {
+        this.startTime = System.currentTimeMillis();
+        this.softLimit = soft;
+        this.hardLimit = hard;
+        this.previousBestMove = 0;
+        this.previousScore = 0;
+        this.stableCount = 0;
+        this.scoreDropped = false;
+    }
+
+
+    /**
+     * Shortens the limits of the move after pondering on it, since the search continues from the
+     * transposition table filled while pondering. At least a quarter of the original time is kept.
+     * @param ponderTime time spent pondering on the move in milliseconds
+     */
+    public void ponderHit(long ponderTime) {
+        this.softLimit = Math.max(this.softLimit / 4, this.softLimit - ponderTime);
+        this.hardLimit = Math.max(this.hardLimit / 4, this.hardLimit - ponderTime);
+    }
+
+
+    /**
+     * Records the result of a completed iteration of iterative deepening
+     * and decides if the next iteration should be started.
+     * @param bestMove best move of the iteration
+     * @param score score of the best move
+     * @return true if the search should stop
+     */
+    public boolean iterationFinished(int bestMove, int score) {
+        if (this.previousBestMove != 0) {
+            this.stableCount = bestMove == this.previousBestMove ? this.stableCount + 1 : 0;
+            this.scoreDropped = (long) this.previousScore - score > this.scoreDropMargin;
+        }
+        this.previousBestMove = bestMove;
+        this.previousScore = score;
+        return this.elapsed() >= this.getAdjustedSoftLimit();
+    }
+
+
+    /**
+     * Soft limit after adjusting for the stability of the best move and drops in score.
+     * @return soft limit in milliseconds
+     */
+    public long getAdjustedSoftLimit() {
+        if (this.scoreDropped) {
+            return Math.min(this.hardLimit, (long) (this.softLimit * this.scoreDropRatio));
+        }
+        if (this.stableCount >= this.stableIterations) {
+            return (long) (this.softLimit * this.stableRatio);
+        }
+        return this.softLimit;
+    }
+
+
+    /**
+     * Checks if the hard limit of the move has been reached.
+     * @return true if the search must stop
+     */
+    public boolean isHardLimitReached() {
+        return this.elapsed() >= this.hardLimit;
+    }
+
+
+    /**
+     * Time used on the current move.
+     * @return elapsed time in milliseconds
+     */
+    public long elapsed() {
+        return System.currentTimeMillis() - this.startTime;
+    }
+
+
+    public long getSoftLimit() {
+        return this.softLimit;
+    }
+
+
+    public long getHardLimit() {
+        return this.hardLimit;
+    }
+
+
+    public void setDefaultMoveTime(long defaultMoveTime) {
+        this.defaultMoveTime = defaultMoveTime;
+    }
+
+
+    public void setMaxMoveTime(long maxMoveTime) {
+        this.maxMoveTime = maxMoveTime;
+    }
+
+
+    public void setMoveOverhead(long moveOverhead) {
+        this.moveOverhead = moveOverhead;
+    }
+
+
+    public void setMovesToGo(int movesToGo, int minMovesToGo) {
+        this.movesToGo = movesToGo;
+        this.minMovesToGo = minMovesToGo;
+    }
+
+
+    public void setHardLimitRatio(double hardLimitRatio, double maxClockFraction) {
+        this.hardLimitRatio = hardLimitRatio;
+        this.maxClockFraction = maxClockFraction;
+    }
+
+
+    public void setStability(int stableIterations, double stableRatio) {
+        this.stableIterations = stableIterations;
+        this.stableRatio = stableRatio;
+    }
+
+
+    public void setScoreDrop(int scoreDropMargin, double scoreDropRatio) {
+        this.scoreDropMargin = scoreDropMargin;
+        this.scoreDropRatio = scoreDropRatio;
+    }
+
+}
@@ -0,0 +1,114 @@
+package datastructureproject;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table backed by a primitive long array.
+ * Every entry takes two longs: a data word packing the best move, score, search depth and bound type,
+ * and the Zobrist key of the position xor the data word for verifying hits.
+ * The table is sized in megabytes and rounded down to a power of two entries,
+ * so the slot for a key is found with a single mask instead of a modulo.
+ * Storing always replaces the previous entry in the slot.
+ *
+ * <p>The table is shared by all search threads without locking. If two threads write the same
+ * slot at once, the key check of the torn entry fails and it is treated as a miss
+ * (https://www.chessprogramming.org/Shared_Hash_Table#Lockless).</p>
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // returned by probe() when the position is not in the table
+    public static final long MISS = 0L;
+
+    // data word layout: [0-15] move, [16-47] score, [48-55] depth, [56-57] bound, [58] occupied
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final long OCCUPIED = 1L << 58;
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] table;
+    private final int mask;
+
+
+    /**
+     * Creates a table taking at most the given amount of memory.
+     * @param sizeMb size of the table in megabytes
+     */
+    public TranspositionTable(int sizeMb) {
+        long maxEntries = Math.max(1L, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        int entries = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 29));
+        this.table = new long[entries * 2];
+        this.mask = entries - 1;
+    }
+
+
+    /**
+     * Looks up the entry stored for the given key.
+     * @param key Zobrist key of the position
+     * @return packed data word of the entry, or MISS if the position is not stored
+     */
+    public long probe(long key) {
+        int index = ((int) key & this.mask) << 1;
+        long data = this.table[index + 1];
+        if ((this.table[index] ^ data) == key) {
+            return data;
+        }
+        return MISS;
+    }
+
+
+    /**
+     * Stores a search result for the given key, replacing whatever was in its slot.
+     * @param key Zobrist key of the position
+     * @param move best move found, only its compact part (MoveParser.getCompact()) is stored
+     * @param score score of the position
+     * @param depth depth the position was searched to
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = ((int) key & this.mask) << 1;
+        long data = (move & 0xFFFFL)
+                    | ((score & 0xFFFFFFFFL) << SCORE_SHIFT)
+                    | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                    | ((long) bound << BOUND_SHIFT)
+                    | OCCUPIED;
+        this.table[index] = key ^ data;
+        this.table[index + 1] = data;
+    }
+
+
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+    }
+
+
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+
+    public static int getMove(long entry) {
+        return (int) (entry & 0xFFFFL);
+    }
+
+
+    public static int getScore(long entry) {
+        return (int) (entry >>> SCORE_SHIFT);
+    }
+
+
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & 0xFFL);
+    }
+
+
+    public static int getBound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3L);
+    }
+
+}
@@ -1,5 +1,6 @@
 package chess.connection;
 
+import chess.bot.ChessBot;
 import chess.bot.TestBot;
 import chess.engine.GameState;
 
@@ -28,6 +29,30 @@ public class XBoardHandlerTest {
     public void tearDown() {
     }
     
+    @Test
+    public void xBoardHandlerEndsGameOnNewAndQuit() {
+        int[] gameOvers = new int[1];
+        ChessBot countingBot = new ChessBot() {
+            @Override
+            public String nextMove(GameState gamestate) {
+                return "e7e5";
+            }
+
+            @Override
+            public void gameOver() {
+                gameOvers[0]++;
+            }
+        };
+        String data = "protover\n" + "new\n" + "quit\n";
+
+        this.in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data.getBytes())));
+
+        XBoardHandler xb = new XBoardHandler(countingBot, in);
+        xb.run();
+
+        assertEquals(2, gameOvers[0]);
+    }
+
     @Test
     public void xBoardHandlerDoesntCrashOnStartupAsWhite() {
         String data = "protover\n" + "new\n" + "white \n" + "endloop \n";
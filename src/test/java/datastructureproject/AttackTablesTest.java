@@ -0,0 +1,32 @@
+package datastructureproject;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class AttackTablesTest {
+
+    @Test
+    public void testKnightAttacks() {
+        // knight on a1 attacks b3 and c2
+        assertEquals((1L << (2 * 8 + 1)) | (1L << (1 * 8 + 2)), AttackTables.getKnightAttacks(0));
+        assertEquals(8, Long.bitCount(AttackTables.getKnightAttacks(3 * 8 + 3)));
+        assertEquals(3, Long.bitCount(AttackTables.getKnightAttacks(7 * 8 + 1)));
+    }
+
+    @Test
+    public void testKingAttacks() {
+        assertEquals(3, Long.bitCount(AttackTables.getKingAttacks(63)));
+        assertEquals(5, Long.bitCount(AttackTables.getKingAttacks(4)));
+        assertEquals(8, Long.bitCount(AttackTables.getKingAttacks(4 * 8 + 4)));
+    }
+
+    @Test
+    public void testPawnAttacksDoNotWrapAroundEdges() {
+        // white pawn on a2 only attacks b3, black pawn on h7 only attacks g6
+        assertEquals(1L << (2 * 8 + 1), AttackTables.getPawnAttacks(1 * 8, true));
+        assertEquals(1L << (5 * 8 + 6), AttackTables.getPawnAttacks(6 * 8 + 7, false));
+        assertEquals(0L, AttackTables.getPawnAttacks(7 * 8 + 3, true));
+        assertEquals(2, Long.bitCount(AttackTables.getPawnAttacks(3 * 8 + 4, false)));
+    }
+
+}
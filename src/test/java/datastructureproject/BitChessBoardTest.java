@@ -39,5 +39,87 @@ public class BitChessBoardTest {
         assertNotEquals(0L, ((board.whiteKing >> (0 * 8 + 4)) & 1L));
         assertNotEquals(0L, ((board.whiteQueens >> (0 * 8 + 3)) & 1L));
     }
-    
+
+    @Test
+    public void testUnmakeMoveRestoresBoard() {
+        board.fenToBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        long[] before = board.getBoard();
+        MoveGenerator mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, 
+                                             chess.model.Side.WHITE);
+        for (int move : mg.getMoves()) {
+            board.makeMove(move);
+            board.unmakeMove(move);
+            assertArrayEquals(before, board.getBoard());
+            assertEquals("KQkq", board.getCastlingString());
+            assertEquals("-", board.getEnpassantString());
+        }
+    }
+
+    @Test
+    public void testUnmakeSpecialMoves() {
+        board.fenToBoard("r3k3/1P6/8/3pP3/8/8/8/R3K2R w KQq d6 0 1");
+        long[] before = board.getBoard();
+        String[] moves = {"e5d6", "e1g1", "e1c1", "b7a8q", "b7b8n", "a1a8"};
+        for (String uci : moves) {
+            int move = MoveParser.uciToMove(uci, board);
+            board.makeMove(move);
+            board.unmakeMove(move);
+            assertArrayEquals(before, board.getBoard());
+            assertEquals("KQq", board.getCastlingString());
+            assertEquals("d5", board.getEnpassantString());
+        }
+    }
+
+    @Test
+    public void testMakeCastlingMove() {
+        board.fenToBoard("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        board.makeMove("e1g1");
+        assertEquals(1L << 6, board.whiteKing);
+        assertEquals((1L << 0) | (1L << 5), board.whiteRooks);
+        assertEquals("-", board.getCastlingString());
+    }
+
+    @Test
+    public void testRepetition() {
+        board.makeMoves(new String[] {"g1f3", "g8f6", "f3g1"});
+        assertFalse(board.isRepetition());
+        board.makeMove("f6g8");
+        assertTrue(board.isRepetition());
+        assertTrue(board.isDraw());
+    }
+
+    @Test
+    public void testNoRepetitionAcrossPawnMove() {
+        board.makeMoves(new String[] {"g1f3", "g8f6", "f3g1", "f6g8", "e2e3", "e7e6"});
+        assertFalse(board.isRepetition());
+        board.makeMoves(new String[] {"g1f3", "g8f6", "f3g1", "f6g8"});
+        assertTrue(board.isRepetition());
+    }
+
+    @Test
+    public void testHalfmoveClock() {
+        board.fenToBoard("4k3/8/8/8/8/8/4P3/R3K3 w - - 98 60");
+        assertEquals(98, board.getHalfmoveClock());
+        int move = MoveParser.uciToMove("a1a2", board);
+        board.makeMove(move);
+        assertEquals(99, board.getHalfmoveClock());
+        assertFalse(board.isDraw());
+        int kingMove = MoveParser.uciToMove("e8d8", board);
+        board.makeMove(kingMove);
+        assertTrue(board.isDraw());
+        board.unmakeMove(kingMove);
+        assertEquals(99, board.getHalfmoveClock());
+        board.unmakeMove(move);
+        board.makeMove("e2e4");
+        assertEquals(0, board.getHalfmoveClock());
+    }
+
+    @Test
+    public void testCopyKeepsHistory() {
+        board.makeMoves(new String[] {"g1f3", "g8f6", "f3g1"});
+        BitChessBoard copy = new BitChessBoard(board);
+        copy.makeMove("f6g8");
+        assertTrue(copy.isRepetition());
+    }
+
 }
@@ -27,11 +27,49 @@ public class HasherTest {
     public void testHash() {
         board.fenToBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
         long hash1 = hasher.getHash(board, Side.WHITE);
-        BitChessBoard newBoard = new BitChessBoard(board);
-        newBoard.makeMove("e2e4");
-        long hash2 = hasher.updateHash(hash1, board, newBoard.castlingRights, newBoard.enpassantable, "e2e4");
-        System.out.println(hash1);
+        assertEquals(hash1, board.getHash());
+        assertEquals(hash1, new BitChessBoard().getHash());
+        board.makeMove("e2e4");
+        long hash2 = board.getHash();
         assertNotEquals(hash1, hash2);
+        assertEquals(hasher.getHash(board, Side.BLACK), hash2);
+        board.unmakeMove(MoveParser.uciToMove("e2e4", new BitChessBoard()));
+        assertEquals(hash1, board.getHash());
+    }
+
+    @Test
+    public void testTranspositionsHaveSameHash() {
+        board.makeMoves(new String[] {"g1f3", "g8f6", "b1c3"});
+        BitChessBoard other = new BitChessBoard();
+        other.makeMoves(new String[] {"b1c3", "g8f6", "g1f3"});
+        assertEquals(board.getHash(), other.getHash());
+    }
+
+    @Test
+    public void testIncrementalHashMatchesRecomputeInPerft() {
+        // positions with castling, en passant, promotions and captures of rooks that can castle
+        String[] fens = {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                         "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                         "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"};
+        long[] expected = {97862, 43238, 9467};
+        PerformanceTest pt = new PerformanceTest();
+        pt.setVerifyIncremental(true);
+        for (int i = 0; i < fens.length; i++) {
+            board.fenToBoard(fens[i]);
+            assertEquals(expected[i], pt.getNodesGenerated(i == 1 ? 4 : 3, board, Side.WHITE));
+        }
     }
     
+    @Test
+    public void testNullMoveHash() {
+        board.makeMoves(new String[] {"e2e4"});
+        long before = board.getHash();
+        board.makeNullMove();
+        assertEquals(-1, board.enpassantable);
+        assertEquals(hasher.getHash(board, Side.WHITE), board.getHash());
+        board.unmakeNullMove();
+        assertEquals(before, board.getHash());
+        assertNotEquals(-1, board.enpassantable);
+    }
+
 }
@@ -0,0 +1,43 @@
+package datastructureproject;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class MagicBitboardsTest {
+
+    @Test
+    public void testRookAttacksOnEmptyBoard() {
+        long expected = 0x01010101010101FEL; // first row and first column except a1
+        assertEquals(expected, MagicBitboards.getRookAttacks(0, 0L));
+    }
+
+    @Test
+    public void testRookAttacksStopAtBlocker() {
+        // rook on d4, blocker on d6 and f4
+        long occupied = (1L << (5 * 8 + 3)) | (1L << (3 * 8 + 5));
+        long attacks = MagicBitboards.getRookAttacks(3 * 8 + 3, occupied);
+        assertNotEquals(0L, attacks & (1L << (5 * 8 + 3)));
+        assertEquals(0L, attacks & (1L << (6 * 8 + 3)));
+        assertNotEquals(0L, attacks & (1L << (3 * 8 + 5)));
+        assertEquals(0L, attacks & (1L << (3 * 8 + 6)));
+        assertEquals(10, Long.bitCount(attacks));
+    }
+
+    @Test
+    public void testBishopAttacks() {
+        assertEquals(7, Long.bitCount(MagicBitboards.getBishopAttacks(0, 0L)));
+        assertEquals(13, Long.bitCount(MagicBitboards.getBishopAttacks(3 * 8 + 3, 0L)));
+        // blocker on b2 stops the a1-h8 diagonal
+        assertEquals(1L << 9, MagicBitboards.getBishopAttacks(0, 1L << 9));
+    }
+
+    @Test
+    public void testQueenAttacksAreRookAndBishopCombined() {
+        long occupied = 0x0000FF000000FF00L;
+        int square = 4 * 8 + 2;
+        long rookAndBishop = MagicBitboards.getRookAttacks(square, occupied)
+                             | MagicBitboards.getBishopAttacks(square, occupied);
+        assertEquals(rookAndBishop, MagicBitboards.getQueenAttacks(square, occupied));
+    }
+
+}
@@ -1,6 +1,5 @@
 package datastructureproject;
 
-import java.util.ArrayList;
 import org.junit.*;
 import static org.junit.Assert.*;
 
@@ -35,8 +34,8 @@ public class MoveGeneratorTest {
         String[] moves = {"e2e4", "d7d5", "f1b5"};
         board.makeMoves(moves);
         mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.BLACK);
-        ArrayList<String> responses = mg.getMoves();
-        assertEquals(5, responses.size());
+        int[] responses = mg.getMoves();
+        assertEquals(5, responses.length);
     }
 
     @Test
@@ -44,8 +43,100 @@ public class MoveGeneratorTest {
         String[] moves = {"e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6", "h5f7"};
         board.makeMoves(moves);
         mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.BLACK);
-        ArrayList<String> responses = mg.getMoves();
-        assertEquals(0, responses.size());
+        int[] responses = mg.getMoves();
+        assertEquals(0, responses.length);
     }
-    
+
+    @Test
+    public void testMovesAreEncoded() {
+        board.fenToBoard("4k3/1P6/8/3pP3/8/8/8/R3K3 w Q d6 0 1");
+        mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.WHITE);
+        int enPassant = 0;
+        int castling = 0;
+        int promotions = 0;
+        for (int move : mg.getMoves()) {
+            if (MoveParser.getFlags(move) == MoveParser.EN_PASSANT) {
+                enPassant = move;
+            } else if (MoveParser.getFlags(move) == MoveParser.CASTLING) {
+                castling = move;
+            } else if (MoveParser.getPromotion(move) != 0) {
+                promotions++;
+            }
+        }
+        assertEquals("e5d6", MoveParser.intToMove(enPassant));
+        assertEquals(6, MoveParser.getCaptured(enPassant));
+        assertEquals("e1c1", MoveParser.intToMove(castling));
+        assertEquals(5, MoveParser.getPiece(castling));
+        assertEquals(4, promotions);
+    }
+
+    @Test
+    public void testGetCaptures() {
+        board.fenToBoard("r3k3/1P6/8/3pP3/8/8/8/R3K3 w Q d6 0 1");
+        mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.WHITE);
+        int[] captures = mg.getCaptures();
+        for (int move : captures) {
+            assertTrue(MoveParser.getCaptured(move) != MoveParser.NO_PIECE || MoveParser.getPromotion(move) != 0);
+        }
+        // e5xd6 en passant, Rxa8, and four promotions both on b8 and a8
+        assertEquals(10, captures.length);
+    }
+
+    @Test
+    public void testPinnedPieceMovesAlongPinRay() {
+        board.fenToBoard("4k3/4r3/8/8/1b6/8/3NR3/4K3 w - - 0 1");
+        mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.WHITE);
+        int rookMoves = 0;
+        for (int move : mg.getMoves()) {
+            // the knight on d2 is pinned by the bishop and cannot move at all
+            assertNotEquals(1, MoveParser.getPiece(move));
+            if (MoveParser.getPiece(move) == 3) {
+                assertEquals(4, MoveParser.getTo(move) % 8);
+                rookMoves++;
+            }
+        }
+        // e3, e4, e5, e6 and the capture on e7
+        assertEquals(5, rookMoves);
+    }
+
+    @Test
+    public void testCheckingPawnCanBeCapturedEnPassant() {
+        board.fenToBoard("8/8/8/2k5/3Pp3/8/8/4K3 b - d3 0 1");
+        mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.BLACK);
+        assertEquals(1, mg.kingInCheck);
+        int enPassants = 0;
+        for (int move : mg.getMoves()) {
+            if (MoveParser.getFlags(move) == MoveParser.EN_PASSANT) {
+                enPassants++;
+            } else {
+                assertEquals(11, MoveParser.getPiece(move));
+            }
+        }
+        assertEquals(1, enPassants);
+    }
+
+    @Test
+    public void testAttackedSquaresSeeThroughKing() {
+        board.fenToBoard("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+        mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.WHITE);
+        // f1 behind the king is attacked, so the king can not step away from the rook along the row
+        assertNotEquals(0L, mg.getAttackedSquares() & (1L << 5));
+        assertEquals(0L, mg.getAttackedSquares() & (1L << 12));
+        assertEquals(3, mg.getMoves().length);
+    }
+
+    @Test
+    public void testNoCastlingThroughAttackedSquare() {
+        board.fenToBoard("k4r2/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        mg = new MoveGenerator(board.getBoard(), board.enpassantable, board.castlingRights, Side.WHITE);
+        int castlings = 0;
+        for (int move : mg.getMoves()) {
+            if (MoveParser.getFlags(move) == MoveParser.CASTLING) {
+                assertEquals(2, MoveParser.getTo(move));
+                castlings++;
+            }
+        }
+        assertEquals(1, castlings);
+    }
+
 }
@@ -1,6 +1,5 @@
 package datastructureproject;
 
-import java.util.ArrayList;
 import org.junit.*;
 import static org.junit.Assert.*;
 
@@ -40,13 +39,35 @@ public class MoveParserTest {
     }
 
     @Test
-    public void testCoordsToMove() {
-        int fromRow = 0;
-        int fromCol = 0;
-        ArrayList<int[]> toCoords = new ArrayList<>();
-        toCoords.add(new int[]{1, 0});
-        String move = "a1a2";
-        assertEquals(move, MoveParser.coordsToMoves(fromRow, fromCol, toCoords, false).get(0));
+    public void testEncodeMove() {
+        int move = MoveParser.encodeMove(52, 60, 0, 9, 2, 0);
+        assertEquals(52, MoveParser.getFrom(move));
+        assertEquals(60, MoveParser.getTo(move));
+        assertEquals(0, MoveParser.getPiece(move));
+        assertEquals(9, MoveParser.getCaptured(move));
+        assertEquals(2, MoveParser.getPromotion(move));
+        assertEquals("e7e8r", MoveParser.intToMove(move));
+        assertEquals(MoveParser.moveToInt("e7e8r"), MoveParser.getCompact(move));
+    }
+
+    @Test
+    public void testUciToMove() {
+        BitChessBoard board = new BitChessBoard();
+        int move = MoveParser.uciToMove("e2e4", board);
+        assertEquals(0, MoveParser.getPiece(move));
+        assertEquals(MoveParser.NO_PIECE, MoveParser.getCaptured(move));
+        assertEquals(MoveParser.DOUBLE_PAWN_PUSH, MoveParser.getFlags(move));
+        board.fenToBoard("4k3/8/8/8/8/8/8/4K2R w K - 0 1");
+        assertEquals(MoveParser.CASTLING, MoveParser.getFlags(MoveParser.uciToMove("e1g1", board)));
+    }
+
+    @Test
+    public void testMoveToIntAndBack() {
+        assertEquals("e2e4", MoveParser.intToMove(MoveParser.moveToInt("e2e4")));
+        assertEquals("h7h8n", MoveParser.intToMove(MoveParser.moveToInt("h7h8n")));
+        assertEquals("a2a1q", MoveParser.intToMove(MoveParser.moveToInt("a2a1q")));
+        assertNotEquals(MoveParser.moveToInt("a7a8q"), MoveParser.moveToInt("a7a8r"));
+        assertEquals(0, MoveParser.moveToInt(null));
     }
 
 }
@@ -0,0 +1,164 @@
+package datastructureproject;
+
+import java.util.Arrays;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+import chess.model.Side;
+
+public class MovePickerTest {
+
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    BitChessBoard board;
+    MoveGenerator mg;
+    MovePicker picker;
+
+    @Before
+    public void setUp() {
+        board = new BitChessBoard();
+        board.fenToBoard(KIWIPETE);
+        mg = new MoveGenerator();
+        mg.reset(board, Side.WHITE);
+        picker = new MovePicker();
+    }
+
+    @After
+    public void tearDown() {
+        board = null;
+        mg = null;
+        picker = null;
+    }
+
+    private int[] pickAll() {
+        int[] picked = new int[MoveGenerator.MAX_MOVES];
+        int count = 0;
+        int move;
+        while ((move = picker.next()) != 0) {
+            picked[count++] = move;
+        }
+        return Arrays.copyOf(picked, count);
+    }
+
+    @Test
+    public void testPicksEveryLegalMoveOnce() {
+        int hashMove = MoveParser.getCompact(MoveParser.uciToMove("a2a3", board));
+        int killer = MoveParser.getCompact(MoveParser.uciToMove("g2g3", board));
+        int illegalKiller = MoveParser.moveToInt("a1a8");
+        picker.init(mg, hashMove, killer, illegalKiller, null);
+
+        int[] picked = pickAll();
+        int[] legal = mg.getMoves();
+        Arrays.sort(picked);
+        Arrays.sort(legal);
+        assertArrayEquals(legal, picked);
+    }
+
+    @Test
+    public void testHashMoveThenCapturesThenKillersThenQuiets() {
+        int hashMove = MoveParser.getCompact(MoveParser.uciToMove("a2a3", board));
+        int killer = MoveParser.getCompact(MoveParser.uciToMove("g2g3", board));
+        picker.init(mg, hashMove, killer, 0, null);
+
+        int[] picked = pickAll();
+        assertEquals("a2a3", MoveParser.intToMove(picked[0]));
+        int i = 1;
+        int previousKey = Integer.MAX_VALUE;
+        while (!MovePicker.isQuiet(picked[i])) {
+            int key = MovePicker.captureOrderKey(picked[i]);
+            assertTrue(key <= previousKey);
+            previousKey = key;
+            i++;
+        }
+        // white has eight captures in the position
+        assertEquals(8, i - 1);
+        assertEquals("g2g3", MoveParser.intToMove(picked[i]));
+        for (i++; i < picked.length; i++) {
+            assertTrue(MovePicker.isQuiet(picked[i]));
+        }
+    }
+
+    @Test
+    public void testQuietsInHistoryOrder() {
+        int[][] history = new int[64][64];
+        history[8][16] = 50; // a2a3
+        history[14][22] = 300; // g2g3
+        history[4][3] = 100; // e1d1
+        picker.init(mg, 0, 0, 0, history);
+
+        int[] picked = pickAll();
+        int i = 0;
+        while (!MovePicker.isQuiet(picked[i])) {
+            i++;
+        }
+        assertEquals("g2g3", MoveParser.intToMove(picked[i]));
+        assertEquals("e1d1", MoveParser.intToMove(picked[i + 1]));
+        assertEquals("a2a3", MoveParser.intToMove(picked[i + 2]));
+        for (i += 3; i < picked.length; i++) {
+            assertEquals(0, history[MoveParser.getFrom(picked[i])][MoveParser.getTo(picked[i])]);
+        }
+    }
+
+    @Test
+    public void testKillersBeforeQuietsAndNotRepeated() {
+        int[][] history = new int[64][64];
+        history[8][16] = 1000; // a2a3, would be the first quiet without the killers
+        int firstKiller = MoveParser.getCompact(MoveParser.uciToMove("g2g3", board));
+        int secondKiller = MoveParser.getCompact(MoveParser.uciToMove("b2b3", board));
+        picker.init(mg, 0, firstKiller, secondKiller, history);
+
+        int[] picked = pickAll();
+        int i = 0;
+        while (!MovePicker.isQuiet(picked[i])) {
+            i++;
+        }
+        assertEquals("g2g3", MoveParser.intToMove(picked[i]));
+        assertEquals("b2b3", MoveParser.intToMove(picked[i + 1]));
+        assertEquals("a2a3", MoveParser.intToMove(picked[i + 2]));
+        assertEquals(mg.getMoves().length, picked.length);
+        for (int j = i + 2; j < picked.length; j++) {
+            assertNotEquals(firstKiller, MoveParser.getCompact(picked[j]));
+            assertNotEquals(secondKiller, MoveParser.getCompact(picked[j]));
+        }
+    }
+
+    @Test
+    public void testKillerEqualToHashMoveIsNotRepeated() {
+        int move = MoveParser.getCompact(MoveParser.uciToMove("g2g3", board));
+        picker.init(mg, move, move, 0, null);
+
+        int[] picked = pickAll();
+        assertEquals(move, MoveParser.getCompact(picked[0]));
+        for (int i = 1; i < picked.length; i++) {
+            assertNotEquals(move, MoveParser.getCompact(picked[i]));
+        }
+    }
+
+    @Test
+    public void testQuietStageOnlyForHistoryOrderedMoves() {
+        int hashMove = MoveParser.getCompact(MoveParser.uciToMove("a2a3", board));
+        int killer = MoveParser.getCompact(MoveParser.uciToMove("g2g3", board));
+        picker.init(mg, hashMove, killer, 0, null);
+
+        assertEquals("a2a3", MoveParser.intToMove(picker.next()));
+        assertFalse(picker.isQuietStage());
+        int move = picker.next();
+        while (!MovePicker.isQuiet(move)) {
+            assertFalse(picker.isQuietStage());
+            move = picker.next();
+        }
+        assertEquals("g2g3", MoveParser.intToMove(move));
+        assertFalse(picker.isQuietStage());
+        while (picker.next() != 0) {
+            assertTrue(picker.isQuietStage());
+        }
+    }
+
+    @Test
+    public void testIllegalHashMoveIsSkipped() {
+        picker.init(mg, MoveParser.moveToInt("e1e3"), 0, 0, null);
+        assertEquals(mg.getMoves().length, pickAll().length);
+    }
+
+}
@@ -21,13 +21,66 @@ public class PositionEvaluatorTest {
 
     @Test
     public void testStartingPosition() {
-        assertEquals(0, PositionEvaluator.evaluatePosition(board.getBoard(), Side.WHITE));
+        assertEquals(0, PositionEvaluator.evaluatePosition(board, Side.WHITE));
     }
 
     @Test
     public void testOneMove() {
         board.makeMove("e2e4");
-        assertEquals(32, PositionEvaluator.evaluatePosition(board.getBoard(), Side.WHITE));
+        assertEquals(32, PositionEvaluator.evaluatePosition(board, Side.WHITE));
     }
-    
+
+    @Test
+    public void testMirroredPositionHasSameScore() {
+        board.fenToBoard("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11");
+        // ranks in reverse order with the colors of the pieces swapped
+        BitChessBoard mirrored = new BitChessBoard();
+        mirrored.fenToBoard("r4rk1/1pp1Bppp/p1np4/2b1p2n/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 b - - 0 11");
+        assertEquals(PositionEvaluator.evaluatePosition(board, Side.WHITE),
+                     PositionEvaluator.evaluatePosition(mirrored, Side.BLACK));
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws InterruptedException {
+        board.fenToBoard("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11");
+        int expected = PositionEvaluator.evaluatePosition(board, Side.WHITE);
+        BitChessBoard start = new BitChessBoard();
+        boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            BitChessBoard position = t % 2 == 0 ? board : start;
+            int score = t % 2 == 0 ? expected : 0;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    if (PositionEvaluator.evaluatePosition(position, Side.WHITE) != score) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+    }
+
+    @Test
+    public void testIncrementalScoresMatchFullEvaluation() {
+        board.fenToBoard("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(PositionEvaluator.evaluatePositionFromScratch(board, Side.WHITE),
+                     PositionEvaluator.evaluatePosition(board, Side.WHITE));
+        // promotions with and without capture, castling and captures
+        String[] moves = {"b7a8q", "f6e4", "a4b3", "b2a1n", "d1a1", "e8g8", "b4c5", "a3c5"};
+        for (String move : moves) {
+            board.makeMove(move);
+            assertEquals(PositionEvaluator.evaluatePositionFromScratch(board, Side.WHITE),
+                         PositionEvaluator.evaluatePosition(board, Side.WHITE));
+        }
+        PerformanceTest pt = new PerformanceTest();
+        pt.setVerifyIncremental(true);
+        board.fenToBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(97862, pt.getNodesGenerated(3, board, Side.WHITE));
+    }
+
 }
@@ -0,0 +1,216 @@
+package datastructureproject;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import chess.engine.GameState;
+import chess.model.Side;
+
+public class SearcherTest {
+
+    BitChessBoard board;
+
+    /**
+     * Time manager that never runs out of time on its own, but reports the hard limit as reached
+     * once the given number of iterations have finished, so tests do not depend on the speed of the machine.
+     */
+    static class IterationLimit extends TimeManager {
+
+        private final int limit;
+        private int iterations = 0;
+
+        IterationLimit(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean iterationFinished(int bestMove, int score) {
+            this.iterations++;
+            return false;
+        }
+
+        @Override
+        public boolean isHardLimitReached() {
+            return this.iterations >= this.limit;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        board = new BitChessBoard();
+    }
+
+    @After
+    public void tearDown() {
+        board = null;
+    }
+
+    @Test
+    public void testFindsMateInOne() {
+        board.fenToBoard("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Searcher searcher = new Searcher(new TranspositionTable(1), 0);
+        assertEquals("a1a8", MoveParser.intToMove(searcher.iterDeepNextMove(board, Side.WHITE, 3, 10000)));
+    }
+
+    @Test
+    public void testFindsMateInOneForBlack() {
+        board.fenToBoard("r5k1/8/8/8/8/8/5PPP/6K1 b - - 0 1");
+        Searcher searcher = new Searcher(new TranspositionTable(1), 0);
+        assertEquals("a8a1", MoveParser.intToMove(searcher.iterDeepNextMove(board, Side.BLACK, 6, 10000)));
+    }
+
+    @Test
+    public void testFoundMateCutsDeepSearchesShort() {
+        // once the mate in one is known, mate distance pruning cuts every longer line, so all depths finish at once
+        board.fenToBoard("6k1/5ppp/8/8/8/8/8/R3R1K1 w - - 0 1");
+        Searcher searcher = new Searcher(new TranspositionTable(1), 0);
+        String move = MoveParser.intToMove(searcher.iterDeepNextMove(board, Side.WHITE, 64, 5000));
+        assertTrue(move, move.equals("a1a8") || move.equals("e1e8"));
+        assertEquals(64, searcher.getCompletedDepth());
+        assertTrue(searcher.getNodes() < 100000);
+    }
+
+    @Test
+    public void testFindsQuietSacrificeWithReductions() {
+        // Qg6 is a quiet move that wins by force, late move reductions and pruning must not hide it
+        board.fenToBoard("2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - 0 1");
+        Searcher searcher = new Searcher(new TranspositionTable(16), 0);
+        assertEquals("g3g6", MoveParser.intToMove(searcher.iterDeepNextMove(board, Side.WHITE, 11, 30000)));
+    }
+
+    @Test
+    public void testLateMoveReductionLeavesOnePly() {
+        for (int d = 2; d <= Searcher.MAX_PLY; d++) {
+            for (int searched = 0; searched < MoveGenerator.MAX_MOVES; searched++) {
+                int reduction = Searcher.getLateMoveReduction(d, searched);
+                assertTrue(reduction >= 0);
+                assertTrue(d - 1 - reduction >= 1);
+            }
+        }
+        assertEquals(1, Searcher.getLateMoveReduction(3, 3));
+        assertTrue(Searcher.getLateMoveReduction(20, 40) > Searcher.getLateMoveReduction(4, 4));
+    }
+
+    @Test
+    public void testMultiThreadedSearchFindsMateInOne() {
+        board.fenToBoard("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        PiketulusBot bot = new PiketulusBot(4);
+        assertEquals("a1a8", MoveParser.intToMove(bot.search(board, Side.WHITE, 3, 10000)));
+    }
+
+    @Test
+    public void testNoLegalMoves() {
+        board.fenToBoard("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        Searcher searcher = new Searcher(new TranspositionTable(1), 0);
+        assertEquals(0, searcher.iterDeepNextMove(board, Side.BLACK, 3, 10000));
+    }
+
+    @Test
+    public void testStopsAtHardLimit() {
+        board.fenToBoard("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11");
+        Searcher searcher = new Searcher(new TranspositionTable(1), 0);
+        // the hard limit has already been reached, so the search stops at the first clock check
+        int move = searcher.iterDeepNextMove(board, Side.WHITE, Searcher.MAX_PLY, new IterationLimit(0));
+        assertTrue(move != 0);
+        assertTrue(searcher.getNodes() <= 2048);
+        assertTrue(searcher.getCompletedDepth() < Searcher.MAX_PLY);
+    }
+
+    @Test
+    public void testStoppedSearchReturnsLegalMove() {
+        board.fenToBoard("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11");
+        Searcher searcher = new Searcher(new TranspositionTable(1), 0);
+        searcher.stop();
+        int move = searcher.iterDeepNextMove(board, Side.WHITE, 30, 10000);
+        assertTrue(move != 0);
+        assertEquals(1, searcher.getNodes());
+    }
+
+    @Test
+    public void testPonderHitAndMiss() {
+        PiketulusBot bot = new PiketulusBot();
+        bot.setPondering(true);
+        GameState gs = new GameState();
+        gs.playing = Side.WHITE;
+        gs.whiteTime = 20000;
+        gs.blackTime = 20000;
+        gs.moves.add(bot.nextMove(gs));
+
+        // play whatever the bot predicted, then a different reply on the next move
+        String predicted = bot.getPonderMove();
+        assertNotNull(predicted);
+        gs.moves.add(predicted);
+        String move = bot.nextMove(gs);
+        assertNotNull(move);
+        assertTrue(bot.wasPonderHit());
+        gs.moves.add(move);
+
+        String secondPredicted = bot.getPonderMove();
+        assertNotNull(secondPredicted);
+        gs.moves.add(secondPredicted.equals("a7a6") ? "h7h6" : "a7a6");
+        assertNotNull(bot.nextMove(gs));
+        assertFalse(bot.wasPonderHit());
+        bot.setPondering(false);
+    }
+
+    @Test
+    public void testGameOverStopsPondering() throws InterruptedException {
+        PiketulusBot bot = new PiketulusBot(2);
+        bot.setPondering(true);
+        GameState gs = new GameState();
+        gs.playing = Side.WHITE;
+        gs.whiteTime = 20000;
+        gs.blackTime = 20000;
+        assertNotNull(bot.nextMove(gs));
+        assertNotNull(bot.getPonderMove());
+
+        bot.gameOver();
+        assertNull(bot.getPonderMove());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName(), thread.isAlive() && thread.getName().startsWith("PiketulusBot"));
+        }
+    }
+
+    @Test
+    public void testTimeManagerEndsBotSearch() {
+        // the time manager lets 10 iterations finish, from depth 2 to 11, and then reports the hard limit,
+        // so the bot goes past depth 10 only if no depth limit stops it first
+        PiketulusBot bot = new PiketulusBot(1, new IterationLimit(10));
+        GameState gs = new GameState();
+        gs.playing = Side.WHITE;
+        assertNotNull(bot.nextMove(gs));
+        assertEquals(11, bot.getCompletedDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount() {
+        new PiketulusBot(0);
+    }
+
+    @Test
+    public void testSearchDoesNotAllocatePerNode() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        board.fenToBoard("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P2N/P1NP4/1PP1bPPP/R4RK1 w - - 0 11");
+        Searcher searcher = new Searcher(new TranspositionTable(16), 0);
+        searcher.iterDeepNextMove(board, Side.WHITE, 5, 100000);
+
+        TimeManager timeManager = new TimeManager();
+        timeManager.startFixed(100000);
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        searcher.iterDeepNextMove(board, Side.WHITE, 7, timeManager);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // only the root move list is allocated, not anything per node
+        assertTrue(searcher.getNodes() > 10000);
+        assertTrue(allocated + " bytes allocated for " + searcher.getNodes() + " nodes", allocated < 8192);
+    }
+
+}
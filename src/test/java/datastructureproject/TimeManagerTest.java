@@ -0,0 +1,79 @@
+package datastructureproject;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class TimeManagerTest {
+
+    TimeManager tm;
+
+    @Before
+    public void setUp() {
+        tm = new TimeManager();
+    }
+
+    @After
+    public void tearDown() {
+        tm = null;
+    }
+
+    @Test
+    public void testDefaultMoveTimeWithoutClock() {
+        tm.setDefaultMoveTime(3000);
+        tm.startFromClock(0, 0, 10);
+        assertEquals(3000, tm.getSoftLimit());
+        assertEquals(3000, tm.getHardLimit());
+    }
+
+    @Test
+    public void testLimitsFromClock() {
+        tm.setMoveOverhead(0);
+        tm.startFromClock(60000, 0, 0);
+        assertEquals(1500, tm.getSoftLimit());
+        assertEquals(6000, tm.getHardLimit());
+    }
+
+    @Test
+    public void testIncrementIsAdded() {
+        tm.setMoveOverhead(0);
+        tm.startFromClock(60000, 2000, 0);
+        assertEquals(3000, tm.getSoftLimit());
+    }
+
+    @Test
+    public void testHardLimitIsFractionOfLowClock() {
+        tm.startFromClock(1050, 0, 100);
+        assertTrue(tm.getHardLimit() <= 250);
+        assertTrue(tm.getSoftLimit() <= tm.getHardLimit());
+    }
+
+    @Test
+    public void testStableBestMoveShortensSoftLimit() {
+        tm.startFixed(10000);
+        tm.setStability(2, 0.5);
+        tm.iterationFinished(1, 0);
+        tm.iterationFinished(1, 0);
+        assertEquals(10000, tm.getAdjustedSoftLimit());
+        tm.iterationFinished(1, 0);
+        assertEquals(5000, tm.getAdjustedSoftLimit());
+        tm.iterationFinished(2, 0);
+        assertEquals(10000, tm.getAdjustedSoftLimit());
+    }
+
+    @Test
+    public void testScoreDropExtendsSoftLimit() {
+        tm.setMoveOverhead(0);
+        tm.startFromClock(60000, 0, 0);
+        tm.iterationFinished(1, 100);
+        tm.iterationFinished(1, -100);
+        assertEquals(3000, tm.getAdjustedSoftLimit());
+    }
+
+    @Test
+    public void testStopsAfterSoftLimit() {
+        tm.startFixed(0);
+        assertTrue(tm.iterationFinished(1, 0));
+        assertTrue(tm.isHardLimitReached());
+    }
+
+}
@@ -0,0 +1,70 @@
+package datastructureproject;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    TranspositionTable table;
+
+    @Before
+    public void setUp() {
+        table = new TranspositionTable(1);
+    }
+
+    @After
+    public void tearDown() {
+        table = null;
+    }
+
+    @Test
+    public void testCapacityIsPowerOfTwo() {
+        assertEquals(65536, table.getCapacity());
+        assertEquals(1, Integer.bitCount(new TranspositionTable(3).getCapacity()));
+    }
+
+    @Test
+    public void testProbeEmptyTable() {
+        assertEquals(TranspositionTable.MISS, table.probe(123456789L));
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        long key = 0x123456789ABCDEFL;
+        int move = MoveParser.moveToInt("e7e8q");
+        table.store(key, move, -1234, 7, TranspositionTable.LOWER_BOUND);
+        long entry = table.probe(key);
+        assertNotEquals(TranspositionTable.MISS, entry);
+        assertEquals(move, TranspositionTable.getMove(entry));
+        assertEquals(-1234, TranspositionTable.getScore(entry));
+        assertEquals(7, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry));
+    }
+
+    @Test
+    public void testExtremeScores() {
+        table.store(1L, 0, Integer.MIN_VALUE + 3, 1, TranspositionTable.EXACT);
+        assertEquals(Integer.MIN_VALUE + 3, TranspositionTable.getScore(table.probe(1L)));
+        table.store(2L, 0, Integer.MAX_VALUE, 1, TranspositionTable.UPPER_BOUND);
+        assertEquals(Integer.MAX_VALUE, TranspositionTable.getScore(table.probe(2L)));
+    }
+
+    @Test
+    public void testCollidingKeyIsNotAHit() {
+        long key = 42L;
+        long otherKey = key + table.getCapacity();
+        table.store(key, 0, 10, 3, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.MISS, table.probe(otherKey));
+        table.store(otherKey, 0, 20, 3, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+        assertEquals(20, TranspositionTable.getScore(table.probe(otherKey)));
+    }
+
+    @Test
+    public void testClear() {
+        table.store(5L, 0, 10, 3, TranspositionTable.EXACT);
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(5L));
+    }
+    
+}